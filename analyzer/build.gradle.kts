@@ -0,0 +1,21 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":core"))
+}
+
+application {
+    mainClass.set("com.example.localizao.analyzer.SessionAnalyzer")
+}
+
+// Fontes com comentários e textos em português (não ASCII)
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
@@ -0,0 +1,42 @@
+package com.example.localizao.analyzer;
+
+import com.example.localizao.core.Constellations;
+import com.example.localizao.core.SatelliteFilter;
+
+/** Opções de linha de comando do analisador. */
+class AnalyzerOptions {
+    int threads = Runtime.getRuntime().availableProcessors();
+    long expectedIntervalMs = 1000;
+    long gapThresholdMs = -1; // -1 = 2x o intervalo esperado
+    int chunkSize = 8 * 1024 * 1024;
+    final SatelliteFilter filter = new SatelliteFilter();
+
+    SessionStats newStats() {
+        return new SessionStats(expectedIntervalMs, gapThresholdMs > 0 ? gapThresholdMs : 2 * expectedIntervalMs);
+    }
+
+    /** Exclui constelações do cálculo de cobertura (ex.: "GLONASS,BEIDOU"), como no app. */
+    void exclude(String names) {
+        boolean gps = filter.isShowGPS(), glonass = filter.isShowGLONASS();
+        boolean galileo = filter.isShowGALILEO(), beidou = filter.isShowBEIDOU();
+        for (String name : names.split(",")) {
+            switch (name.trim().toUpperCase()) {
+                case "GPS": gps = false; break;
+                case "GLONASS": glonass = false; break;
+                case "GALILEO": galileo = false; break;
+                case "BEIDOU": beidou = false; break;
+                default:
+                    throw new IllegalArgumentException("Constelação não filtrável: " + name
+                            + " (use " + Constellations.name(Constellations.GPS) + ", "
+                            + Constellations.name(Constellations.GLONASS) + ", "
+                            + Constellations.name(Constellations.GALILEO) + " ou "
+                            + Constellations.name(Constellations.BEIDOU) + ")");
+            }
+        }
+        filter.set(gps, glonass, galileo, beidou, filter.isShowUnused());
+    }
+
+    void usedOnly() {
+        filter.set(filter.isShowGPS(), filter.isShowGLONASS(), filter.isShowGALILEO(), filter.isShowBEIDOU(), false);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.localizao.analyzer;
+
+import com.example.localizao.core.SatelliteFilter;
+import com.example.localizao.core.SessionFormat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Analisa o trecho [start, end) de um arquivo de sessão mapeado em memória. Trechos maiores que
+ * {@code chunkSize} são divididos ao meio, no limite de linha mais próximo, e processados em
+ * paralelo; os resultados são unidos em ordem com {@link SessionStats#append(SessionStats)}.
+ */
+class ChunkTask extends RecursiveTask<SessionStats> {
+    private static final long serialVersionUID = 1L;
+
+    private final ByteBuffer data;
+    private final int start, end;
+    private final AnalyzerOptions options;
+
+    ChunkTask(ByteBuffer data, int start, int end, AnalyzerOptions options) {
+        this.data = data;
+        this.start = start;
+        this.end = end;
+        this.options = options;
+    }
+
+    @Override
+    protected SessionStats compute() {
+        if (end - start > options.chunkSize) {
+            int split = nextLineStart(start + (end - start) / 2);
+            if (split > start && split < end) {
+                ChunkTask left = new ChunkTask(data, start, split, options);
+                ChunkTask right = new ChunkTask(data, split, end, options);
+                right.fork();
+                SessionStats result = left.compute();
+                result.append(right.join());
+                return result;
+            }
+        }
+        return parse();
+    }
+
+    /** Primeiro byte após o próximo '\n' a partir de {@code from} (ou {@code end}). */
+    private int nextLineStart(int from) {
+        for (int i = from; i < end; i++) {
+            if (data.get(i) == '\n') return i + 1;
+        }
+        return end;
+    }
+
+    private SessionStats parse() {
+        SessionStats stats = options.newStats();
+        SatelliteFilter filter = options.filter;
+        byte[] line = new byte[256];
+        String[] fields = new String[Math.max(SessionFormat.L_FIELDS, SessionFormat.S_FIELDS)];
+
+        int i = start;
+        while (i < end) {
+            int length = 0;
+            while (i < end && data.get(i) != '\n') {
+                if (length == line.length) line = java.util.Arrays.copyOf(line, line.length * 2);
+                line[length++] = data.get(i++);
+            }
+            i++; // Pula o '\n'
+            if (length > 0 && line[length - 1] == '\r') length--;
+            if (length == 0 || line[0] == SessionFormat.COMMENT) continue;
+
+            stats.lines++;
+            int n = split(new String(line, 0, length, StandardCharsets.ISO_8859_1), fields);
+            try {
+                if (line[0] == SessionFormat.LOCATION && n >= SessionFormat.L_FIELDS) {
+                    long elapsed = Long.parseLong(fields[SessionFormat.L_ELAPSED_MS]);
+                    String accuracy = fields[SessionFormat.L_ACCURACY];
+                    stats.addFix(elapsed, accuracy.isEmpty() ? Double.NaN : Double.parseDouble(accuracy));
+                } else if (line[0] == SessionFormat.SATELLITE && n >= SessionFormat.S_FIELDS) {
+                    stats.addSatellite(
+                            Integer.parseInt(fields[SessionFormat.S_CONSTELLATION]),
+                            Integer.parseInt(fields[SessionFormat.S_SVID]),
+                            Float.parseFloat(fields[SessionFormat.S_AZIMUTH]),
+                            Float.parseFloat(fields[SessionFormat.S_ELEVATION]),
+                            "1".equals(fields[SessionFormat.S_USED]),
+                            filter);
+                } else {
+                    stats.malformed++;
+                }
+            } catch (NumberFormatException e) {
+                stats.malformed++;
+            }
+        }
+        return stats;
+    }
+
+    /** Divide a linha nos campos (até {@code fields.length}); retorna quantos foram lidos. */
+    private static int split(String line, String[] fields) {
+        int n = 0, from = 0;
+        while (n < fields.length) {
+            int comma = line.indexOf(SessionFormat.SEPARATOR, from);
+            if (comma < 0) {
+                fields[n++] = line.substring(from);
+                break;
+            }
+            fields[n++] = line.substring(from, comma);
+            from = comma + 1;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.localizao.analyzer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Analisa um arquivo de sessão inteiro. O arquivo é mapeado em memória em janelas de até
+ * {@link #WINDOW_BYTES} (terminadas em fim de linha), e cada janela é dividida em
+ * {@link ChunkTask}s.
+ */
+class FileTask extends RecursiveTask<SessionStats> {
+    private static final long serialVersionUID = 1L;
+
+    private static final int WINDOW_BYTES = 1 << 30;
+
+    final Path path;
+    private final AnalyzerOptions options;
+
+    FileTask(Path path, AnalyzerOptions options) {
+        this.path = path;
+        this.options = options;
+    }
+
+    @Override
+    protected SessionStats compute() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            SessionStats stats = options.newStats();
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(WINDOW_BYTES, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (position + length < size) {
+                    // Corta a janela no último fim de linha; o resto vai para a próxima
+                    int end = length;
+                    while (end > 0 && window.get(end - 1) != '\n') end--;
+                    if (end == 0) throw new IOException("Linha maior que " + WINDOW_BYTES + " bytes");
+                    length = end;
+                }
+                stats.append(new ChunkTask(window, 0, length, options).compute());
+                position += length;
+            }
+            stats.sessions = 1;
+            return stats;
+        } catch (IOException e) {
+            throw new UncheckedIOException(path.toString(), e);
+        }
+    }
+}
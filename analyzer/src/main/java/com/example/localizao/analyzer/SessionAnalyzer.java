@@ -0,0 +1,163 @@
+package com.example.localizao.analyzer;
+
+import com.example.localizao.core.Constellations;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Analisador em lote dos arquivos de sessão gravados pelo app. Processa os arquivos em paralelo
+ * (e arquivos grandes em trechos paralelos) e imprime uma linha TSV por sessão mais o total.
+ * <pre>
+ * java -jar analyzer.jar [opções] arquivo-ou-pasta...
+ *   --threads N               threads de trabalho (padrão: núcleos)
+ *   --expected-interval-ms N  intervalo de fix esperado (padrão: 1000)
+ *   --gap-ms N                intervalo que conta como falha (padrão: 2x o esperado)
+ *   --chunk-mb N              tamanho dos trechos paralelos (padrão: 8)
+ *   --exclude GPS,GLONASS     constelações fora da cobertura do céu
+ *   --used-only               cobertura só com satélites usados no fix
+ * </pre>
+ */
+public class SessionAnalyzer {
+    // Constelações com coluna própria na saída
+    private static final int[] COLUMNS = {
+            Constellations.GPS, Constellations.GLONASS, Constellations.GALILEO,
+            Constellations.BEIDOU, Constellations.QZSS, Constellations.SBAS
+    };
+
+    public static void main(String[] args) {
+        AnalyzerOptions options = new AnalyzerOptions();
+        List<Path> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads": options.threads = Integer.parseInt(args[++i]); break;
+                    case "--expected-interval-ms": options.expectedIntervalMs = Long.parseLong(args[++i]); break;
+                    case "--gap-ms": options.gapThresholdMs = Long.parseLong(args[++i]); break;
+                    case "--chunk-mb": {
+                        // Limita antes de multiplicar para não estourar o int (máx. 2047 MB)
+                        long mb = Math.min(Math.max(1, Long.parseLong(args[++i])), Integer.MAX_VALUE / (1024 * 1024));
+                        options.chunkSize = (int) (mb * 1024 * 1024);
+                        break;
+                    }
+                    case "--exclude": options.exclude(args[++i]); break;
+                    case "--used-only": options.usedOnly(); break;
+                    default:
+                        if (args[i].startsWith("--")) throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+                        inputs.add(Paths.get(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Falta o valor da opção" : e.getMessage());
+            System.exit(2);
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Uso: SessionAnalyzer [opções] arquivo-ou-pasta...");
+            System.exit(2);
+        }
+
+        List<Path> files;
+        try {
+            files = findSessionFiles(inputs);
+        } catch (IOException e) {
+            System.err.println("Erro ao listar arquivos: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, options.threads));
+        List<FileTask> tasks = new ArrayList<>();
+        for (Path file : files) {
+            FileTask task = new FileTask(file, options);
+            tasks.add(task);
+            pool.execute(task);
+        }
+
+        PrintStream out = System.out;
+        printHeader(out);
+        SessionStats total = options.newStats();
+        int failed = 0;
+        for (FileTask task : tasks) {
+            SessionStats stats;
+            try {
+                stats = task.join();
+            } catch (UncheckedIOException e) {
+                System.err.println("Erro ao ler " + task.path + ": " + e.getCause().getMessage());
+                failed++;
+                continue;
+            }
+            printRow(out, task.path.toString(), stats);
+            total.mergeIndependent(stats);
+        }
+        printRow(out, "TOTAL", total);
+        pool.shutdown();
+
+        System.err.printf(Locale.ROOT, "%d arquivo(s), %d linha(s) (%d inválida(s)) em %.1f s%n",
+                files.size() - failed, total.lines, total.malformed, (System.nanoTime() - start) / 1e9);
+        if (failed > 0) System.exit(1);
+    }
+
+    private static List<Path> findSessionFiles(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> walk = Files.walk(input)) {
+                    files.addAll(walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".csv"))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                files.add(input);
+            }
+        }
+        return files;
+    }
+
+    private static void printHeader(PrintStream out) {
+        StringBuilder sb = new StringBuilder("session\tfixes\tduration_s\tavailability\tgaps\tgap_s"
+                + "\taccuracy_p50_m\taccuracy_p95_m\tunder_5m\tsky_coverage");
+        for (int c : COLUMNS) {
+            String name = Constellations.name(c);
+            sb.append('\t').append(name).append("_used\t").append(name).append("_svids");
+        }
+        out.println(sb);
+    }
+
+    private static void printRow(PrintStream out, String name, SessionStats s) {
+        StringBuilder sb = new StringBuilder(name);
+        sb.append('\t').append(s.fixes);
+        sb.append('\t').append(format(s.spanMs() / 1000.0));
+        sb.append('\t').append(format(s.availability()));
+        sb.append('\t').append(s.gaps);
+        sb.append('\t').append(format(s.gapMs / 1000.0));
+        sb.append('\t').append(format(s.accuracyPercentile(0.50)));
+        sb.append('\t').append(format(s.accuracyPercentile(0.95)));
+        sb.append('\t').append(format(s.accuracyBelow(5)));
+        // Sem linhas de satélite (gravação sem essa opção) os campos ficam vazios, não zero
+        boolean hasSatellites = s.hasSatellites();
+        sb.append('\t').append(hasSatellites ? format(s.skyCoverage()) : "");
+        for (int c : COLUMNS) {
+            double used = s.observations[c] == 0 ? Double.NaN : (double) s.usedObservations[c] / s.observations[c];
+            sb.append('\t').append(format(used));
+            sb.append('\t').append(hasSatellites ? String.valueOf(s.uniqueSvids(c)) : "");
+        }
+        out.println(sb);
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) return "";
+        if (Double.isInfinite(value)) return "inf";
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
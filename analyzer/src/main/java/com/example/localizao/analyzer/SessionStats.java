@@ -0,0 +1,183 @@
+package com.example.localizao.analyzer;
+
+import com.example.localizao.core.Constellations;
+import com.example.localizao.core.SatelliteFilter;
+import com.example.localizao.core.SkyProjection;
+
+/**
+ * Estatísticas de um trecho de sessão. Trechos consecutivos do mesmo arquivo são unidos com
+ * {@link #append(SessionStats)} (que conta a falha na emenda entre eles); sessões diferentes são
+ * somadas com {@link #mergeIndependent(SessionStats)}.
+ */
+public class SessionStats {
+    // Precisão: intervalos de 0,1 m até 100 m, mais um intervalo de estouro
+    private static final double ACCURACY_BIN_M = 0.1;
+    private static final int ACCURACY_BINS = 1000;
+    // Cobertura do céu: grade quadrada sobre a projeção azimutal (raio 1)
+    static final int SKY_GRID = 24;
+    private static final int SKY_CELLS_IN_DISK = countCellsInDisk();
+    private static final int MAX_SVID = 256;
+
+    private final long expectedIntervalMs;
+    private final long gapThresholdMs;
+
+    long lines = 0;
+    long malformed = 0;
+    int sessions = 0;
+
+    long fixes = 0;
+    private long firstFixMs = -1;
+    private long lastFixMs = -1;
+    private long completedSpanMs = 0; // Duração somada de sessões já fechadas (mergeIndependent)
+    long gaps = 0;
+    long gapMs = 0;
+
+    private final long[] accuracyHistogram = new long[ACCURACY_BINS + 1];
+    long accuracyCount = 0;
+
+    final long[] observations = new long[Constellations.COUNT];
+    final long[] usedObservations = new long[Constellations.COUNT];
+    private final long[][] svids = new long[Constellations.COUNT][MAX_SVID / 64];
+    private final long[] skyCells = new long[(SKY_GRID * SKY_GRID + 63) / 64];
+
+    public SessionStats(long expectedIntervalMs, long gapThresholdMs) {
+        this.expectedIntervalMs = expectedIntervalMs;
+        this.gapThresholdMs = gapThresholdMs;
+    }
+
+    void addFix(long elapsedMs, double accuracy) {
+        if (lastFixMs >= 0) checkGap(lastFixMs, elapsedMs);
+        if (firstFixMs < 0) firstFixMs = elapsedMs;
+        lastFixMs = elapsedMs;
+        fixes++;
+        if (!Double.isNaN(accuracy) && accuracy >= 0) {
+            int bin = (int) Math.min(ACCURACY_BINS, accuracy / ACCURACY_BIN_M);
+            accuracyHistogram[bin]++;
+            accuracyCount++;
+        }
+    }
+
+    void addSatellite(int constellation, int svid, float azimuth, float elevation, boolean used, SatelliteFilter filter) {
+        if (constellation < 0 || constellation >= Constellations.COUNT) constellation = Constellations.UNKNOWN;
+        observations[constellation]++;
+        if (used) usedObservations[constellation]++;
+        if (svid >= 0 && svid < MAX_SVID) svids[constellation][svid >> 6] |= 1L << (svid & 63);
+
+        // Cobertura: mesma projeção e mesmos filtros do gráfico do céu do app
+        if (elevation < 0 || !filter.accepts(constellation, used)) return;
+        float x = SkyProjection.x(azimuth, elevation, 1f);
+        float y = SkyProjection.y(azimuth, elevation, 1f);
+        int col = Math.min(SKY_GRID - 1, Math.max(0, (int) ((x + 1) / 2 * SKY_GRID)));
+        int row = Math.min(SKY_GRID - 1, Math.max(0, (int) ((1 - y) / 2 * SKY_GRID)));
+        int cell = row * SKY_GRID + col;
+        skyCells[cell >> 6] |= 1L << (cell & 63);
+    }
+
+    private void checkGap(long previousMs, long currentMs) {
+        long interval = currentMs - previousMs;
+        if (interval > gapThresholdMs) {
+            gaps++;
+            gapMs += interval - expectedIntervalMs;
+        }
+    }
+
+    /** Une o trecho seguinte do mesmo arquivo (em ordem). */
+    public void append(SessionStats next) {
+        if (lastFixMs >= 0 && next.firstFixMs >= 0) checkGap(lastFixMs, next.firstFixMs);
+        if (firstFixMs < 0) firstFixMs = next.firstFixMs;
+        if (next.lastFixMs >= 0) lastFixMs = next.lastFixMs;
+        completedSpanMs += next.completedSpanMs;
+        sessions = Math.max(sessions, next.sessions);
+        mergeCounters(next);
+    }
+
+    /** Soma uma sessão independente (sem falha entre elas). */
+    public void mergeIndependent(SessionStats other) {
+        completedSpanMs = spanMs() + other.spanMs();
+        firstFixMs = -1;
+        lastFixMs = -1;
+        sessions += other.sessions;
+        mergeCounters(other);
+    }
+
+    private void mergeCounters(SessionStats o) {
+        lines += o.lines;
+        malformed += o.malformed;
+        fixes += o.fixes;
+        gaps += o.gaps;
+        gapMs += o.gapMs;
+        for (int i = 0; i < accuracyHistogram.length; i++) accuracyHistogram[i] += o.accuracyHistogram[i];
+        accuracyCount += o.accuracyCount;
+        for (int c = 0; c < Constellations.COUNT; c++) {
+            observations[c] += o.observations[c];
+            usedObservations[c] += o.usedObservations[c];
+            for (int w = 0; w < svids[c].length; w++) svids[c][w] |= o.svids[c][w];
+        }
+        for (int w = 0; w < skyCells.length; w++) skyCells[w] |= o.skyCells[w];
+    }
+
+    /** Duração coberta por fixes (do primeiro ao último de cada sessão). */
+    public long spanMs() {
+        long open = firstFixMs >= 0 ? lastFixMs - firstFixMs : 0;
+        return completedSpanMs + open;
+    }
+
+    /** Fração do tempo com fix, considerando o intervalo esperado entre fixes. */
+    public double availability() {
+        if (fixes == 0) return 0;
+        double expected = (double) spanMs() + Math.max(1, sessions) * expectedIntervalMs;
+        return Math.min(1.0, fixes * expectedIntervalMs / expected);
+    }
+
+    /** Percentil da precisão em metros (limite superior do intervalo), ou NaN sem dados. */
+    public double accuracyPercentile(double p) {
+        if (accuracyCount == 0) return Double.NaN;
+        long target = Math.max(1, (long) Math.ceil(p * accuracyCount));
+        long seen = 0;
+        for (int i = 0; i < accuracyHistogram.length; i++) {
+            seen += accuracyHistogram[i];
+            if (seen >= target) return i == ACCURACY_BINS ? Double.POSITIVE_INFINITY : (i + 1) * ACCURACY_BIN_M;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /** Fração dos fixes com precisão abaixo de {@code meters}; NaN se nenhum fix informou precisão. */
+    public double accuracyBelow(double meters) {
+        if (accuracyCount == 0) return Double.NaN;
+        int limit = (int) Math.min(ACCURACY_BINS, meters / ACCURACY_BIN_M);
+        long below = 0;
+        for (int i = 0; i < limit; i++) below += accuracyHistogram[i];
+        return (double) below / accuracyCount;
+    }
+
+    /** Se a sessão tem linhas de satélite (gravadas só quando pedido no app). */
+    public boolean hasSatellites() {
+        for (long n : observations) if (n > 0) return true;
+        return false;
+    }
+
+    public int uniqueSvids(int constellation) {
+        int n = 0;
+        for (long word : svids[constellation]) n += Long.bitCount(word);
+        return n;
+    }
+
+    /** Fração da área do céu (na projeção do app) onde algum satélite foi observado. */
+    public double skyCoverage() {
+        int marked = 0;
+        for (long word : skyCells) marked += Long.bitCount(word);
+        return Math.min(1.0, (double) marked / SKY_CELLS_IN_DISK);
+    }
+
+    private static int countCellsInDisk() {
+        int n = 0;
+        for (int row = 0; row < SKY_GRID; row++) {
+            for (int col = 0; col < SKY_GRID; col++) {
+                double x = (col + 0.5) / SKY_GRID * 2 - 1;
+                double y = 1 - (row + 0.5) / SKY_GRID * 2;
+                if (x * x + y * y <= 1) n++;
+            }
+        }
+        return n;
+    }
+}
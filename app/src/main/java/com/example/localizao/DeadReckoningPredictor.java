@@ -0,0 +1,215 @@
+package com.example.localizao;
+
+import android.location.Location;
+import android.os.Build;
+
+/**
+ * Preditor leve de posição entre fixes (dead reckoning). Usa velocidade e rumo do último fix
+ * para extrapolar a posição e a incerteza, opcionalmente suavizadas por um filtro de Kalman de
+ * velocidade constante (um por eixo, em um plano local leste/norte em metros).
+ * <p>
+ * {@link #predict(long, double[])} não aloca memória e pode ser chamado a cada quadro.
+ */
+public class DeadReckoningPredictor {
+    private static final double EARTH_RADIUS_M = 6371008.8;
+    // Distância máxima à origem do plano local antes de reiniciar o filtro
+    private static final double MAX_ORIGIN_DISTANCE_M = 50_000;
+    // Horizonte máximo de extrapolação (evita posições absurdas se os fixes pararem)
+    private static final double MAX_HORIZON_S = 10;
+    // Abaixo desta velocidade (m/s) o aparelho é tratado como parado: a posição não muda entre quadros
+    private static final double MIN_MOVING_SPEED = 0.2;
+
+    // Índices do vetor de saída de predict()
+    public static final int OUT_LATITUDE = 0;
+    public static final int OUT_LONGITUDE = 1;
+    public static final int OUT_ACCURACY = 2;
+
+    private final boolean useKalman;
+    // Desvio padrão da aceleração não modelada (m/s²), ruído de processo do filtro
+    private final double accelSigma;
+
+    private boolean hasFix = false;
+    private double originLat, originLon, cosOriginLat;
+    private long lastFixNanos;
+
+    // Estado da extrapolação simples (último fix, em metros no plano local)
+    private double fixEast, fixNorth, velEast, velNorth;
+    private double fixAccuracy, speedSigma;
+
+    // Estado do filtro de Kalman (um por eixo)
+    private final Axis east = new Axis();
+    private final Axis north = new Axis();
+
+    public DeadReckoningPredictor(boolean useKalman, double accelSigma) {
+        this.useKalman = useKalman;
+        this.accelSigma = accelSigma;
+    }
+
+    public void reset() { hasFix = false; }
+
+    public boolean hasFix() { return hasFix; }
+
+    /** Incorpora um novo fix. */
+    public void onFix(Location location) {
+        if (location == null) { reset(); return; }
+
+        double lat = location.getLatitude();
+        double lon = location.getLongitude();
+        long fixNanos = location.getElapsedRealtimeNanos();
+
+        if (hasFix) {
+            double e = toEast(lon), n = toNorth(lat);
+            if (e * e + n * n > MAX_ORIGIN_DISTANCE_M * MAX_ORIGIN_DISTANCE_M || fixNanos < lastFixNanos)
+                hasFix = false;
+        }
+        if (!hasFix) {
+            originLat = lat;
+            originLon = lon;
+            cosOriginLat = Math.cos(Math.toRadians(lat));
+        }
+
+        double posEast = toEast(lon);
+        double posNorth = toNorth(lat);
+        double accuracy = location.hasAccuracy() ? Math.max(location.getAccuracy(), 1f) : 50;
+        // A precisão do Android é o raio horizontal (68%); a variância fica dividida entre os eixos
+        double posVar = accuracy * accuracy / 2;
+
+        boolean hasVelocity = location.hasSpeed() && (location.hasBearing() || location.getSpeed() == 0f);
+        double vEast = 0, vNorth = 0;
+        if (hasVelocity) {
+            double bearing = Math.toRadians(location.getBearing());
+            vEast = location.getSpeed() * Math.sin(bearing);
+            vNorth = location.getSpeed() * Math.cos(bearing);
+        }
+        double sigmaV = 1.0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && location.hasSpeedAccuracy())
+            sigmaV = Math.max(location.getSpeedAccuracyMetersPerSecond(), 0.1f);
+        double velVar = sigmaV * sigmaV;
+
+        if (!hasFix) {
+            east.init(posEast, vEast, posVar, hasVelocity ? velVar : 100);
+            north.init(posNorth, vNorth, posVar, hasVelocity ? velVar : 100);
+        } else {
+            double dt = (fixNanos - lastFixNanos) / 1e9;
+            double q = accelSigma * accelSigma;
+            east.predict(dt, q);
+            north.predict(dt, q);
+            east.updatePosition(posEast, posVar);
+            north.updatePosition(posNorth, posVar);
+            if (hasVelocity) {
+                east.updateVelocity(vEast, velVar);
+                north.updateVelocity(vNorth, velVar);
+            }
+        }
+
+        fixEast = posEast;
+        fixNorth = posNorth;
+        velEast = vEast;
+        velNorth = vNorth;
+        fixAccuracy = accuracy;
+        speedSigma = hasVelocity ? sigmaV : 0;
+        lastFixNanos = fixNanos;
+        hasFix = true;
+    }
+
+    /**
+     * Indica se a posição prevista ainda muda com o tempo: há fix, o horizonte máximo não foi
+     * atingido e o aparelho está em movimento. Fora disso não vale a pena redesenhar a cada quadro.
+     */
+    public boolean isExtrapolating(long nowNanos) {
+        if (!hasFix) return false;
+        double dt = (nowNanos - lastFixNanos) / 1e9;
+        if (dt >= MAX_HORIZON_S) return false;
+        double speed = useKalman ? Math.hypot(east.v, north.v) : Math.hypot(velEast, velNorth);
+        return speed >= MIN_MOVING_SPEED;
+    }
+
+    /**
+     * Extrapola a posição para o instante {@code nowNanos} (base {@code elapsedRealtimeNanos}).
+     *
+     * @param out vetor com pelo menos 3 posições: latitude, longitude e precisão estimada (m)
+     * @return false se ainda não há fix
+     */
+    public boolean predict(long nowNanos, double[] out) {
+        if (!hasFix) return false;
+        double dt = (nowNanos - lastFixNanos) / 1e9;
+        if (dt < 0) dt = 0;
+        if (dt > MAX_HORIZON_S) dt = MAX_HORIZON_S;
+
+        double e, n, accuracy;
+        if (useKalman) {
+            double q = accelSigma * accelSigma;
+            e = east.x + east.v * dt;
+            n = north.x + north.v * dt;
+            accuracy = Math.sqrt(east.positionVariance(dt, q) + north.positionVariance(dt, q));
+        } else {
+            e = fixEast + velEast * dt;
+            n = fixNorth + velNorth * dt;
+            double drift = speedSigma * dt;
+            double accel = accelSigma * dt * dt / 2;
+            accuracy = Math.sqrt(fixAccuracy * fixAccuracy + drift * drift + accel * accel);
+        }
+
+        out[OUT_LATITUDE] = originLat + Math.toDegrees(n / EARTH_RADIUS_M);
+        out[OUT_LONGITUDE] = originLon + Math.toDegrees(e / (EARTH_RADIUS_M * cosOriginLat));
+        out[OUT_ACCURACY] = accuracy;
+        return true;
+    }
+
+    private double toEast(double lon) {
+        double dLon = lon - originLon;
+        if (dLon > 180) dLon -= 360;
+        else if (dLon < -180) dLon += 360;
+        return Math.toRadians(dLon) * EARTH_RADIUS_M * cosOriginLat;
+    }
+
+    private double toNorth(double lat) { return Math.toRadians(lat - originLat) * EARTH_RADIUS_M; }
+
+    /** Filtro de Kalman de velocidade constante em um eixo: estado [x, v] e covariância P. */
+    private static class Axis {
+        double x, v;
+        double p00, p01, p11;
+
+        void init(double x, double v, double posVar, double velVar) {
+            this.x = x; this.v = v;
+            p00 = posVar; p01 = 0; p11 = velVar;
+        }
+
+        void predict(double dt, double q) {
+            x += v * dt;
+            double dt2 = dt * dt;
+            p00 += dt * (2 * p01 + dt * p11) + q * dt2 * dt2 / 4;
+            p01 += dt * p11 + q * dt2 * dt / 2;
+            p11 += q * dt2;
+        }
+
+        double positionVariance(double dt, double q) {
+            double dt2 = dt * dt;
+            return p00 + dt * (2 * p01 + dt * p11) + q * dt2 * dt2 / 4;
+        }
+
+        void updatePosition(double z, double r) {
+            double s = p00 + r;
+            double k0 = p00 / s, k1 = p01 / s;
+            double y = z - x;
+            x += k0 * y;
+            v += k1 * y;
+            double n00 = (1 - k0) * p00;
+            double n01 = (1 - k0) * p01;
+            double n11 = p11 - k1 * p01;
+            p00 = n00; p01 = n01; p11 = n11;
+        }
+
+        void updateVelocity(double z, double r) {
+            double s = p11 + r;
+            double k0 = p01 / s, k1 = p11 / s;
+            double y = z - v;
+            x += k0 * y;
+            v += k1 * y;
+            double n00 = p00 - k0 * p01;
+            double n01 = (1 - k1) * p01;
+            double n11 = (1 - k1) * p11;
+            p00 = n00; p01 = n01; p11 = n11;
+        }
+    }
+}
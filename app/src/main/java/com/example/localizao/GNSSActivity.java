@@ -1,6 +1,7 @@
 package com.example.localizao;
 
 import android.Manifest;
+import android.app.AlertDialog;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.location.GnssStatus;
@@ -10,6 +11,7 @@ import android.location.LocationManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
@@ -23,11 +25,23 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 public class GNSSActivity extends AppCompatActivity {
     private static final int REQUEST_LOCATION_UPDATES = 1;
+    private static final long LOCATION_INTERVAL_MS = 5 * 1000;
     private LocationManager locationManager;
     LocationListener locationListener;
     GnssStatus.Callback gnssCallback;
+    // Gráfico da sessão (precisão, altitude e velocidade)
+    TimeSeriesView timeSeriesView;
+    // Métricas da sessão (TTFF, falhas, satélites usados)
+    final GnssSessionMetrics metrics = new GnssSessionMetrics(LOCATION_INTERVAL_MS);
+    // Satélites agregados por constelação + SVID (uma entrada por satélite, não por banda)
+    final SatelliteAggregator satellites = new SatelliteAggregator();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -38,6 +52,7 @@ public class GNSSActivity extends AppCompatActivity {
 
         Button btnStartGNSS = findViewById(R.id.buttonStartGNSS);
         Button btnStopGNSS = findViewById(R.id.buttonStopGNSS);
+        timeSeriesView = findViewById(R.id.timeSeriesView);
 
         btnStartGNSS.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -52,6 +67,14 @@ public class GNSSActivity extends AppCompatActivity {
                 stopGnssUpdate();
             }
         });
+
+        Button btnMetrics = findViewById(R.id.buttonMetrics);
+        btnMetrics.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showMetricsPanel();
+            }
+        });
     }
 
     public void startGnssStatus() {
@@ -60,11 +83,16 @@ public class GNSSActivity extends AppCompatActivity {
             android.Manifest.permission.ACCESS_FINE_LOCATION) ==
             PackageManager.PERMISSION_GRANTED) {
             // A permissão foi dada– OK vá em frente
+            // Nova sessão: descarta a série anterior
+            timeSeriesView.clear();
+            metrics.start();
             // Objeto instância de uma classe anônima que implementa a interface LocationListener
             locationListener = new LocationListener() {
                 @Override
                 public void onLocationChanged(@NonNull Location location) {
                     atualizaLocationTextView(location); // Processa nova localização
+                    timeSeriesView.newLocation(location);
+                    metrics.onLocation(location);
                 }
                 @Override
                 public void onStatusChanged(String provider, int status, Bundle extras) {}
@@ -76,7 +104,7 @@ public class GNSSActivity extends AppCompatActivity {
             // Informa o provedor de localização, tempo e distância mínimos e o escutador
             locationManager.requestLocationUpdates(
                     LocationManager.GPS_PROVIDER, // provedor de localização
-                    5*1000, // intervalo mínimo (ms)
+                    LOCATION_INTERVAL_MS, // intervalo mínimo (ms)
                     0, // distância mínima (m)
                     locationListener); // objeto que irá processar as localizações
 
@@ -86,7 +114,14 @@ public class GNSSActivity extends AppCompatActivity {
                 public void onSatelliteStatusChanged(@NonNull GnssStatus status) {
                     super.onSatelliteStatusChanged(status);
                     // Processa as informações do sistema de satélite
+                    satellites.update(status);
                     atualizaGNSSTextView(status);
+                    metrics.onSatelliteStatus(satellites);
+                }
+
+                @Override
+                public void onFirstFix(int ttffMillis) {
+                    metrics.onFirstFix(ttffMillis);
                 }
             };
 
@@ -144,22 +179,60 @@ public class GNSSActivity extends AppCompatActivity {
             return;
         }
         StringBuilder sb = new StringBuilder();
-        int count = status.getSatelliteCount();
+        // Um item por satélite: as bandas (L1/L5, E1/E5a...) do mesmo SVID já vêm agregadas
+        int count = satellites.getCount();
         sb.append("Satélites visíveis: ").append(count).append("\n");
         for (int i = 0; i < count; i++) {
-            int svid = status.getSvid(i); // ID do satélite
-            float azimuth = status.getAzimuthDegrees(i); // Azimute (0º = Norte, 90º = Leste)
-            float elevation = status.getElevationDegrees(i); // Elevação (0º = Horizonte, 90º = Zênite)
-            boolean used = status.usedInFix(i);
+            SatelliteAggregator.Satellite sat = satellites.get(i);
+            int svid = sat.svid; // ID do satélite
+            float azimuth = sat.azimuthDegrees; // Azimute (0º = Norte, 90º = Leste)
+            float elevation = sat.elevationDegrees; // Elevação (0º = Horizonte, 90º = Zênite)
+            boolean used = sat.usedInFix;
             sb.append("SVID: ").append(svid)
                     .append(" | Azimute: ").append(azimuth).append("º")
                     .append(" | Elevação: ").append(elevation).append("º")
-                    .append(" | Usado no fix: ").append(used)
+                    .append(" | Bandas:");
+            for (int b = 0; b < sat.bandCount; b++) {
+                sb.append(' ').append(sat.bandName(b));
+            }
+            sb.append(" | Usado no fix: ").append(used)
                     .append("\n");
         }
         textViewGNSS.setText(sb.toString());
     }
 
+    /** Painel com as métricas da sessão e opção de exportar o dump em JSON. */
+    private void showMetricsPanel() {
+        if (!metrics.isStarted()) {
+            Toast.makeText(this, "Nenhuma sessão GNSS iniciada", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Métricas da Sessão GNSS")
+                .setMessage(metrics.toSummaryText())
+                .setPositiveButton("Exportar JSON", (dialog, which) -> exportMetrics())
+                .setNegativeButton("Fechar", null)
+                .show();
+    }
+
+    private void exportMetrics() {
+        String json = metrics.toJson();
+        Log.i("GnssSessionMetrics", json);
+        File dir = getExternalFilesDir("metrics");
+        if (dir == null) {
+            Toast.makeText(this, "Armazenamento indisponível; métricas enviadas ao logcat", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        File file = new File(dir, "gnss-metrics-" + System.currentTimeMillis() + ".json");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+            Toast.makeText(this, "Métricas salvas em " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            e.printStackTrace();
+            Toast.makeText(this, "Falha ao salvar métricas", Toast.LENGTH_SHORT).show();
+        }
+    }
+
     public void stopGnssUpdate() {
         // desliga a GnssCallback
         if (gnssCallback != null) {
@@ -173,6 +246,8 @@ public class GNSSActivity extends AppCompatActivity {
         if (locationListener != null) {
                 locationManager.removeUpdates(locationListener);
         }
+        // Encerra a sessão para que o painel e o dump não sigam contando tempo após o Stop
+        metrics.stop();
         atualizaGNSSTextView(null);
         atualizaLocationTextView(null);
     }
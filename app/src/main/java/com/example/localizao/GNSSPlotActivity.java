@@ -3,6 +3,7 @@ package com.example.localizao;
 import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.location.GnssNavigationMessage;
 import android.location.GnssStatus;
 import android.location.Location;
 import android.location.LocationListener;
@@ -10,22 +11,31 @@ import android.location.LocationManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
+import com.example.localizao.core.GpsNavigationDecoder;
+
 /**
  * Atividade responsável por configurar e exibir o componente customizado GNSSView
  * e fornecer dados de GNSS Status e Location para ele.
  */
 public class GNSSPlotActivity extends AppCompatActivity {
     private static final int REQUEST_LOCATION_UPDATES = 1;
+    private static final long LOCATION_INTERVAL_MS = 4000;
     private LocationManager locationManager;
     LocationListener locationListener;
     GnssStatus.Callback gnssCallback;
+    GnssNavigationMessage.Callback navigationCallback;
     GNSSView gnssView;
+    // Órbitas GPS decodificadas da mensagem de navegação (para prever satélites não rastreados)
+    final GpsNavigationDecoder orbits = new GpsNavigationDecoder();
+    // Métricas da sessão (TTFF, falhas, satélites usados), enviadas ao logcat ao parar
+    final GnssSessionMetrics metrics = new GnssSessionMetrics(LOCATION_INTERVAL_MS);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -37,12 +47,14 @@ public class GNSSPlotActivity extends AppCompatActivity {
 
         // Referência para o controle customizado (GNSSView)
         gnssView = findViewById(R.id.GNSSViewid);
+        gnssView.setOrbitSource(orbits);
 
         startGnssUpdate();
     }
 
     public void startGnssUpdate() {
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            metrics.start();
 
             // Escutador de Localização: Repassa a última localização para o GNSSView (necessário para a precisão do Fix)
             locationListener = new LocationListener() {
@@ -50,6 +62,7 @@ public class GNSSPlotActivity extends AppCompatActivity {
                 public void onLocationChanged(@NonNull Location location) {
                     // Repassa a localização para que o GNSSView possa usar a precisão (accuracy)
                     gnssView.newLocation(location);
+                    metrics.onLocation(location);
                 }
 
                 @Override
@@ -60,10 +73,12 @@ public class GNSSPlotActivity extends AppCompatActivity {
                 public void onProviderDisabled(@NonNull String provider) { }
             };
 
-            // Solicita atualizações de localização para obter o objeto Location
+            // Solicita atualizações de localização para obter o objeto Location.
+            // O GNSSView extrapola a posição entre os fixes, então uma taxa baixa basta
+            // e economiza energia do receptor.
             locationManager.requestLocationUpdates(
                     LocationManager.GPS_PROVIDER,
-                    1000, // 1 segundo
+                    LOCATION_INTERVAL_MS, // 4 segundos
                     0, // 0 metros
                     locationListener);
 
@@ -73,11 +88,31 @@ public class GNSSPlotActivity extends AppCompatActivity {
                 public void onSatelliteStatusChanged(@NonNull GnssStatus status) {
                     super.onSatelliteStatusChanged(status);
                     gnssView.newStatus(status);
+                    metrics.onSatelliteStatus(gnssView.getSatellites());
+                }
+
+                @Override
+                public void onFirstFix(int ttffMillis) {
+                    metrics.onFirstFix(ttffMillis);
                 }
             };
 
             locationManager.registerGnssStatusCallback(gnssCallback, new Handler(Looper.getMainLooper()));
 
+            // Mensagens de navegação GPS L1 C/A: efeméride e almanaque para as órbitas.
+            // Nem todo aparelho as fornece; sem elas o GNSSView mostra só os satélites rastreados.
+            navigationCallback = new GnssNavigationMessage.Callback() {
+                @Override
+                public void onGnssNavigationMessageReceived(GnssNavigationMessage message) {
+                    if (message.getType() != GnssNavigationMessage.TYPE_GPS_L1CA) return;
+                    if (message.getStatus() == GnssNavigationMessage.STATUS_UNKNOWN) return; // Paridade não confirmada
+                    if (orbits.onSubframe(message.getSvid(), message.getData())) {
+                        gnssView.invalidate();
+                    }
+                }
+            };
+            locationManager.registerGnssNavigationMessageCallback(navigationCallback, new Handler(Looper.getMainLooper()));
+
         } else {
             // Solicita a permissão se ainda não foi concedida
             ActivityCompat.requestPermissions(
@@ -111,9 +146,16 @@ public class GNSSPlotActivity extends AppCompatActivity {
                 e.printStackTrace();
             }
         }
+        if (navigationCallback != null) {
+            locationManager.unregisterGnssNavigationMessageCallback(navigationCallback);
+        }
         if (locationListener != null) {
             locationManager.removeUpdates(locationListener);
         }
+        if (metrics.isStarted()) {
+            metrics.stop();
+            Log.i("GnssSessionMetrics", metrics.toJson());
+        }
         if (gnssView != null) {
             gnssView.newStatus(null);
             gnssView.newLocation(null);
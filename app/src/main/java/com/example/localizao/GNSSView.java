@@ -11,7 +11,12 @@ import android.graphics.Path;
 import android.graphics.drawable.Drawable;
 import android.location.GnssStatus;
 import android.location.Location;
+import android.os.SystemClock;
 import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
 import android.view.View;
 import android.widget.CheckBox;
 import android.widget.LinearLayout;
@@ -20,19 +25,81 @@ import android.preference.PreferenceManager;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat; // Import necessário para ContextCompat
 
+import com.example.localizao.core.Constellations;
+import com.example.localizao.core.GpsNavigationDecoder;
+import com.example.localizao.core.SatelliteFilter;
+import com.example.localizao.core.SkyPredictor;
+import com.example.localizao.core.SkyProjection;
+
 /**
  * Componente customizado para desenhar a projeção da esfera celeste e satélites GNSS,
  * utilizando logos (Drawable) para identificação da constelação.
  */
-public class GNSSView extends View implements View.OnClickListener {
+public class GNSSView extends View {
     // Variáveis de Estado de Dados
-    private GnssStatus gnssStatus = null;
+    // Satélites agregados por constelação + SVID (uma entrada por satélite, não por banda)
+    private final SatelliteAggregator satellites = new SatelliteAggregator();
     private Location lastLocation = null;
 
+    // Predição entre fixes (permite taxa de fix menor sem perder a fluidez da tela)
+    private final DeadReckoningPredictor predictor = new DeadReckoningPredictor(true, 1.5);
+    private final double[] predicted = new double[3];
+    private final StringBuilder predictionText = new StringBuilder(64);
+
+    // Projeção dos satélites filtrados, recalculada uma vez por status (não a cada quadro)
+    private int projectedCount = 0;
+    private int[] projectedIndex = new int[0]; // Índice do satélite no SatelliteAggregator
+    private float[] projectedX = new float[0];
+    private float[] projectedY = new float[0];
+    private float[] projectedPriority = new float[0];
+    private String[] projectedLabel = new String[0];
+    private float[] projectedLabelWidth = new float[0];
+    private int visibleCount = 0;
+    private int usedCount = 0;
+
+    // Satélites GPS previstos pelas órbitas da mensagem de navegação, mas ainda não rastreados
+    // (marcadores "fantasma"); as previsões ficam em cache por intervalos de 30 s
+    private GpsNavigationDecoder orbits = null;
+    private final SkyPredictor skyPredictor = new SkyPredictor(SkyPredictor.DEFAULT_BUCKET_MS);
+    private int ghostCount = 0;
+    private final float[] ghostX = new float[GpsNavigationDecoder.MAX_PRN];
+    private final float[] ghostY = new float[GpsNavigationDecoder.MAX_PRN];
+    private final String[] ghostLabel = new String[GpsNavigationDecoder.MAX_PRN];
+    private final Paint ghostPaint = new Paint();
+
+    // Nível de detalhe: agrupa marcadores sobrepostos e posiciona rótulos sem colisão
+    private static final int ICON_SIZE = 36;
+    private final SkyPlotLevelOfDetail levelOfDetail = new SkyPlotLevelOfDetail(ICON_SIZE, ICON_SIZE / 2f + 4, 22, 5);
+    private final Paint labelPaint = new Paint();
+
+    // Índice de grade para o teste de toque sobre os marcadores projetados
+    private static final float HIT_CELL_SIZE = 48;
+    private static final float HIT_RADIUS = 36;
+    private final SpatialGrid hitGrid = new SpatialGrid();
+    private final GestureDetector gestureDetector;
+
+    // Satélite selecionado pelo toque (constelação + SVID, para manter a seleção entre status)
+    private int selectedConstellation = -1;
+    private int selectedSvid = -1;
+    private int selectedSlot = -1; // Posição na projeção atual, ou -1
+
     // Variáveis de Desenho e Dimensões
     private int r;
     private int height, width;
     private Paint paint = new Paint();
+    // Pincéis, caminho e textos reaproveitados: onDraw roda a cada quadro e não deve alocar
+    private final Paint zenithPaint = new Paint();
+    private final Paint borderPaint = new Paint();
+    private final Path starPath = new Path();
+    private String statusText1 = "";
+    private String statusText2 = "";
+    private final String[] selectionLines = new String[5];
+    private final String[] latencyLines = new String[PipelineLatencyTracker.STAGE_NAMES.length + 1];
+    // Rótulos dos contadores de grupo (evita String.valueOf a cada quadro)
+    private static final String[] COUNT_LABELS = new String[100];
+    static {
+        for (int i = 0; i < COUNT_LABELS.length; i++) COUNT_LABELS[i] = String.valueOf(i);
+    }
 
     // Constantes do Atributo Customizado Zênite
     private static final int ZENITH_CIRCLE = 0;
@@ -47,12 +114,24 @@ public class GNSSView extends View implements View.OnClickListener {
     public static final String PREF_GALILEO = "pref_galileo";
     public static final String PREF_BEIDOU = "pref_beidou";
     public static final String PREF_SHOW_UNUSED = "pref_show_unused";
-
-    private boolean showGPS = true;
-    private boolean showGLONASS = true;
-    private boolean showGALILEO = true;
-    private boolean showBEIDOU = true;
-    private boolean showUnused = true;
+    public static final String PREF_SHOW_LATENCY = "pref_show_latency";
+    public static final String PREF_SHOW_PREDICTED = "pref_show_predicted";
+
+    private final SatelliteFilter filter = new SatelliteFilter();
+    private boolean showLatency = false;
+    private boolean showPredicted = true;
+
+    // Latências do pipeline (callback → processamento → fila → desenho)
+    private final PipelineLatencyTracker latency = new PipelineLatencyTracker();
+    // Quadros perdidos: um FrameCallback por vsync, só com o overlay ligado e a view na janela
+    private boolean frameMonitoring = false;
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            latency.onFrame(frameTimeNanos);
+            if (frameMonitoring) Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
 
     // --- VARIÁVEIS PARA LOGOS (DRAWABLES) ---
     private Drawable gpsDrawable;
@@ -89,8 +168,35 @@ public class GNSSView extends View implements View.OnClickListener {
         sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
         loadConfiguration();
 
-        // --- 4. Configura o componente para responder a cliques ---
-        this.setOnClickListener(this);
+        labelPaint.setAntiAlias(true);
+        labelPaint.setColor(Color.WHITE);
+        labelPaint.setTextAlign(Paint.Align.LEFT);
+        labelPaint.setTextSize(25);
+
+        ghostPaint.setAntiAlias(true);
+        ghostPaint.setColor(COLOR_GPS_BORDER);
+        ghostPaint.setAlpha(110);
+        ghostPaint.setStrokeWidth(3);
+        ghostPaint.setTextSize(22);
+
+        borderPaint.setAntiAlias(true);
+        borderPaint.setStyle(Paint.Style.FILL);
+
+        // --- 4. Toque seleciona um satélite; toque longo abre a configuração ---
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) { return true; }
+
+            @Override
+            public boolean onSingleTapUp(MotionEvent e) {
+                selectAt(e.getX(), e.getY());
+                performClick();
+                return true;
+            }
+
+            @Override
+            public void onLongPress(MotionEvent e) { showConfigurationDialog(); }
+        });
     }
 
     @Override
@@ -102,57 +208,279 @@ public class GNSSView extends View implements View.OnClickListener {
             r = (int) (width / 2 * 0.9);
         else
             r = (int) (height / 2 * 0.9);
+        buildStarPath(computeXc(0), computeYc(0));
+        rebuildProjection();
+    }
+
+    /** Estrela de 5 pontas do marcador de zênite, centrada em (cx, cy). */
+    private void buildStarPath(float cx, float cy) {
+        starPath.reset();
+
+        // Parâmetros para os raios
+        final float outerRadius = 16f;
+        final float innerRadius = 8f;
+        final int numPoints = 5;
+
+        // Ponto inicial: ponta superior (-90 graus)
+        float startAngle = (float) Math.toRadians(-90);
+
+        // Calcula os 10 pontos (5 externos, 5 internos)
+        for (int i = 0; i < numPoints * 2; i++) {
+            float currentRadius = (i % 2 == 0) ? outerRadius : innerRadius;
+            float angle = (float) Math.toRadians(i * 36) + startAngle;
+
+            float x = (float) (cx + currentRadius * Math.cos(angle));
+            float y = (float) (cy + currentRadius * Math.sin(angle));
+
+            if (i == 0) {
+                starPath.moveTo(x, y); // Começa no primeiro ponto externo
+            } else {
+                starPath.lineTo(x, y); // Liga sequencialmente
+            }
+        }
+
+        starPath.close();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateFrameMonitoring();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        updateFrameMonitoring();
+    }
+
+    /** Liga a contagem de quadros perdidos enquanto o overlay de latências estiver visível. */
+    private void updateFrameMonitoring() {
+        boolean enable = showLatency && isAttachedToWindow();
+        if (enable == frameMonitoring) return;
+        frameMonitoring = enable;
+        if (enable) {
+            Display display = getDisplay();
+            float refreshRate = display != null ? display.getRefreshRate() : 60f;
+            latency.startFrameMonitoring((long) (1e9 / refreshRate));
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        } else {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
     }
 
     // --- Métodos de Atualização de Dados (Chamados pela Activity) ---
-    public void newStatus(GnssStatus gnssStatus) { this.gnssStatus = gnssStatus; invalidate(); }
-    public void newLocation(Location location) { this.lastLocation = location; invalidate(); }
+    public void newStatus(GnssStatus gnssStatus) {
+        long start = PipelineLatencyTracker.now();
+        satellites.update(gnssStatus);
+        rebuildProjection();
+        long end = PipelineLatencyTracker.now();
+        latency.record(PipelineLatencyTracker.STAGE_PROCESSING, end - start);
+        latency.onUpdateQueued(end);
+        if (showLatency) buildLatencyText();
+        invalidate();
+    }
+
+    public void newLocation(Location location) {
+        long start = PipelineLatencyTracker.now();
+        if (location != null)
+            latency.record(PipelineLatencyTracker.STAGE_CALLBACK, start - location.getElapsedRealtimeNanos());
+        this.lastLocation = location;
+        predictor.onFix(location);
+        long end = PipelineLatencyTracker.now();
+        latency.record(PipelineLatencyTracker.STAGE_PROCESSING, end - start);
+        latency.onUpdateQueued(end);
+        if (showLatency) buildLatencyText();
+        invalidate();
+    }
+
+    public PipelineLatencyTracker getLatencyTracker() { return latency; }
+
+    /** Satélites agregados do último status recebido. */
+    public SatelliteAggregator getSatellites() { return satellites; }
+
+    /** Fonte das órbitas GPS usadas para prever os satélites ainda não rastreados. */
+    public void setOrbitSource(GpsNavigationDecoder orbits) {
+        this.orbits = orbits;
+        invalidate();
+    }
 
     private int computeXc(double x) { return (int) (x + width / 2); }
     private int computeYc(double y) { return (int) (-y + height / 2); }
 
+    /**
+     * Aplica os filtros, projeta os satélites na tela e reconstrói o índice de toque.
+     * Chamado a cada novo status, mudança de tamanho ou de configuração.
+     */
+    private void rebuildProjection() {
+        projectedCount = 0;
+        visibleCount = 0;
+        usedCount = 0;
+        selectedSlot = -1;
+
+        int count = satellites.getCount();
+        if (projectedIndex.length < count) {
+            projectedIndex = new int[count];
+            projectedX = new float[count];
+            projectedY = new float[count];
+            projectedPriority = new float[count];
+            projectedLabel = new String[count];
+            projectedLabelWidth = new float[count];
+        }
+        hitGrid.reset(width, height, HIT_CELL_SIZE, count);
+
+        for (int i = 0; i < count; i++) {
+            SatelliteAggregator.Satellite sat = satellites.get(i);
+            int constellation = sat.constellation;
+            boolean usedInFix = sat.usedInFix;
+            if (!filter.accepts(constellation, usedInFix)) {
+                continue;
+            }
+
+            // Contagem
+            visibleCount++;
+            if (usedInFix) {
+                usedCount++;
+            }
+
+            // Cálculo das Coordenadas (Projeção Azimutal Equidistante)
+            float az = sat.azimuthDegrees;
+            float el = sat.elevationDegrees;
+            float sat_cx = computeXc(SkyProjection.x(az, el, r));
+            float sat_cy = computeYc(SkyProjection.y(az, el, r));
+
+            int slot = projectedCount++;
+            projectedIndex[slot] = i;
+            projectedX[slot] = sat_cx;
+            projectedY[slot] = sat_cy;
+            // Usados no fix e com sinal mais forte ganham o marcador do grupo e o rótulo
+            projectedPriority[slot] = (usedInFix ? 1000f : 0f) + sat.maxCn0DbHz;
+            projectedLabel[slot] = String.valueOf(sat.svid);
+            projectedLabelWidth[slot] = labelPaint.measureText(projectedLabel[slot]);
+
+            if (constellation == selectedConstellation && sat.svid == selectedSvid) {
+                selectedSlot = slot;
+            }
+        }
+
+        levelOfDetail.compute(projectedCount, projectedX, projectedY, projectedPriority, projectedLabelWidth, width, height);
+        // Só os marcadores desenhados (representantes dos grupos) respondem ao toque
+        for (int c = 0; c < levelOfDetail.getClusterCount(); c++) {
+            int slot = levelOfDetail.getClusterItem(c);
+            hitGrid.insert(slot, projectedX[slot], projectedY[slot]);
+        }
+        rebuildGhosts();
+        buildSelectionText();
+    }
+
+    /**
+     * Atualiza as previsões das órbitas para a última posição. O SkyPredictor só refaz as contas
+     * quando muda o intervalo da cache, as órbitas ou a posição, então pode ser chamado a cada quadro.
+     */
+    private void updatePredictions() {
+        if (!showPredicted || orbits == null || lastLocation == null) return;
+        if (skyPredictor.update(orbits, System.currentTimeMillis(),
+                lastLocation.getLatitude(), lastLocation.getLongitude(), lastLocation.getAltitude())) {
+            rebuildGhosts();
+        }
+    }
+
+    /** Projeta os satélites previstos que não estão no último status (fantasmas) e refaz as contagens. */
+    private void rebuildGhosts() {
+        ghostCount = 0;
+        boolean canPredict = showPredicted && orbits != null && lastLocation != null
+                && filter.accepts(Constellations.GPS, false);
+
+        for (int i = 0; canPredict && i < skyPredictor.getCount(); i++) {
+            int svid = skyPredictor.getSvid(i);
+            if (satellites.indexOf(Constellations.GPS, svid) >= 0) continue; // Já rastreado
+
+            float az = skyPredictor.getAzimuthDegrees(i);
+            float el = skyPredictor.getElevationDegrees(i);
+            ghostX[ghostCount] = computeXc(SkyProjection.x(az, el, r));
+            ghostY[ghostCount] = computeYc(SkyProjection.y(az, el, r));
+            ghostLabel[ghostCount] = String.valueOf(svid);
+            ghostCount++;
+        }
+
+        statusText1 = "Satélites Visíveis: " + visibleCount;
+        if (ghostCount > 0) statusText1 += " (+" + ghostCount + " previstos)";
+        statusText2 = "Satélites em Uso (Fix): " + usedCount;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        return gestureDetector.onTouchEvent(event) || super.onTouchEvent(event);
+    }
+
+    @Override
+    public boolean performClick() { return super.performClick(); }
+
+    /** Seleciona o marcador mais próximo do toque (ou limpa a seleção se não houver). */
+    private void selectAt(float x, float y) {
+        int slot = hitGrid.nearest(x, y, HIT_RADIUS);
+        if (slot < 0) {
+            selectedConstellation = -1;
+            selectedSvid = -1;
+        } else {
+            SatelliteAggregator.Satellite sat = satellites.get(projectedIndex[slot]);
+            selectedConstellation = sat.constellation;
+            selectedSvid = sat.svid;
+        }
+        selectedSlot = slot;
+        buildSelectionText();
+        invalidate();
+    }
+
     private void loadConfiguration() {
-        showGPS = sharedPrefs.getBoolean(PREF_GPS, true);
-        showGLONASS = sharedPrefs.getBoolean(PREF_GLONASS, true);
-        showGALILEO = sharedPrefs.getBoolean(PREF_GALILEO, true);
-        showBEIDOU = sharedPrefs.getBoolean(PREF_BEIDOU, true);
-        showUnused = sharedPrefs.getBoolean(PREF_SHOW_UNUSED, true);
+        filter.set(sharedPrefs.getBoolean(PREF_GPS, true),
+                sharedPrefs.getBoolean(PREF_GLONASS, true),
+                sharedPrefs.getBoolean(PREF_GALILEO, true),
+                sharedPrefs.getBoolean(PREF_BEIDOU, true),
+                sharedPrefs.getBoolean(PREF_SHOW_UNUSED, true));
+        showLatency = sharedPrefs.getBoolean(PREF_SHOW_LATENCY, false);
+        showPredicted = sharedPrefs.getBoolean(PREF_SHOW_PREDICTED, true);
     }
 
-    public void saveConfiguration(boolean gps, boolean glonass, boolean galileo, boolean beidou, boolean showUnusedSatellites) {
+    public void saveConfiguration(boolean gps, boolean glonass, boolean galileo, boolean beidou, boolean showUnusedSatellites, boolean showLatencyOverlay, boolean showPredictedSatellites) {
         SharedPreferences.Editor editor = sharedPrefs.edit();
 
-        this.showGPS = gps; editor.putBoolean(PREF_GPS, gps);
-        this.showGLONASS = glonass; editor.putBoolean(PREF_GLONASS, glonass);
-        this.showGALILEO = galileo; editor.putBoolean(PREF_GALILEO, galileo);
-        this.showBEIDOU = beidou; editor.putBoolean(PREF_BEIDOU, beidou);
-        this.showUnused = showUnusedSatellites; editor.putBoolean(PREF_SHOW_UNUSED, showUnusedSatellites);
+        filter.set(gps, glonass, galileo, beidou, showUnusedSatellites);
+        editor.putBoolean(PREF_GPS, gps);
+        editor.putBoolean(PREF_GLONASS, glonass);
+        editor.putBoolean(PREF_GALILEO, galileo);
+        editor.putBoolean(PREF_BEIDOU, beidou);
+        editor.putBoolean(PREF_SHOW_UNUSED, showUnusedSatellites);
+        this.showLatency = showLatencyOverlay; editor.putBoolean(PREF_SHOW_LATENCY, showLatencyOverlay);
+        if (showLatency) buildLatencyText();
+        updateFrameMonitoring();
+        this.showPredicted = showPredictedSatellites; editor.putBoolean(PREF_SHOW_PREDICTED, showPredictedSatellites);
 
         editor.apply();
+        rebuildProjection();
         invalidate();
     }
 
-    @Override
-    public void onClick(View v) { showConfigurationDialog(); }
-
     private void showConfigurationDialog() {
         LinearLayout layout = new LinearLayout(getContext());
         layout.setOrientation(LinearLayout.VERTICAL);
         layout.setPadding(50, 50, 50, 50);
 
-        final CheckBox gpsCb = new CheckBox(getContext()); gpsCb.setText("GPS"); gpsCb.setChecked(showGPS);
-        final CheckBox glonassCb = new CheckBox(getContext()); glonassCb.setText("GLONASS"); glonassCb.setChecked(showGLONASS);
-        final CheckBox galileoCb = new CheckBox(getContext()); galileoCb.setText("GALILEO"); galileoCb.setChecked(showGALILEO);
-        final CheckBox beidouCb = new CheckBox(getContext()); beidouCb.setText("BEIDOU"); beidouCb.setChecked(showBEIDOU);
-        final CheckBox unusedCb = new CheckBox(getContext()); unusedCb.setText("Mostrar satélites não usados no FIX"); unusedCb.setChecked(showUnused);
+        final CheckBox gpsCb = new CheckBox(getContext()); gpsCb.setText("GPS"); gpsCb.setChecked(filter.isShowGPS());
+        final CheckBox glonassCb = new CheckBox(getContext()); glonassCb.setText("GLONASS"); glonassCb.setChecked(filter.isShowGLONASS());
+        final CheckBox galileoCb = new CheckBox(getContext()); galileoCb.setText("GALILEO"); galileoCb.setChecked(filter.isShowGALILEO());
+        final CheckBox beidouCb = new CheckBox(getContext()); beidouCb.setText("BEIDOU"); beidouCb.setChecked(filter.isShowBEIDOU());
+        final CheckBox unusedCb = new CheckBox(getContext()); unusedCb.setText("Mostrar satélites não usados no FIX"); unusedCb.setChecked(filter.isShowUnused());
+        final CheckBox latencyCb = new CheckBox(getContext()); latencyCb.setText("Mostrar latências (depuração)"); latencyCb.setChecked(showLatency);
+        final CheckBox predictedCb = new CheckBox(getContext()); predictedCb.setText("Mostrar satélites GPS previstos (órbitas)"); predictedCb.setChecked(showPredicted);
 
-        layout.addView(gpsCb); layout.addView(glonassCb); layout.addView(galileoCb); layout.addView(beidouCb); layout.addView(unusedCb);
+        layout.addView(gpsCb); layout.addView(glonassCb); layout.addView(galileoCb); layout.addView(beidouCb); layout.addView(unusedCb); layout.addView(latencyCb); layout.addView(predictedCb);
 
         new AlertDialog.Builder(getContext())
                 .setTitle("Configuração de Visualização GNSS")
                 .setView(layout)
                 .setPositiveButton("Salvar", (dialog, which) -> saveConfiguration(
-                        gpsCb.isChecked(), glonassCb.isChecked(), galileoCb.isChecked(), beidouCb.isChecked(), unusedCb.isChecked()
+                        gpsCb.isChecked(), glonassCb.isChecked(), galileoCb.isChecked(), beidouCb.isChecked(), unusedCb.isChecked(), latencyCb.isChecked(), predictedCb.isChecked()
                 ))
                 .setNegativeButton("Cancelar", null)
                 .show();
@@ -194,7 +522,7 @@ public class GNSSView extends View implements View.OnClickListener {
         if (satelliteIcon == null) return;
 
         // 2. Define o tamanho e os limites do ícone
-        final int iconSize = 36;
+        final int iconSize = ICON_SIZE;
 
         int left = (int) (cx - iconSize / 2);
         int top = (int) (cy - iconSize / 2);
@@ -209,9 +537,6 @@ public class GNSSView extends View implements View.OnClickListener {
             final int outerRadius = iconSize / 2 + borderSize; // Raio total do círculo da borda
 
             // Desenha o círculo da borda (preenchido com a cor da constelação)
-            Paint borderPaint = new Paint();
-            borderPaint.setAntiAlias(true);
-            borderPaint.setStyle(Paint.Style.FILL);
             borderPaint.setColor(borderColor);
             canvas.drawCircle(cx, cy, outerRadius, borderPaint);
         }
@@ -225,10 +550,10 @@ public class GNSSView extends View implements View.OnClickListener {
 
     // --- Lógica de Desenho Principal (onDraw) ---
     protected void onDraw(Canvas canvas) {
+        long drawStart = PipelineLatencyTracker.now();
+        latency.onDrawStarted(drawStart);
         super.onDraw(canvas);
 
-        int visibleCount = 0;
-        int usedCount = 0;
         int cx = computeXc(0);
         int cy = computeYc(0);
 
@@ -255,9 +580,12 @@ public class GNSSView extends View implements View.OnClickListener {
 
         // --- 2. Desenho do Marcador de Zênite (Centro) com Precisão do Fix ---
 
-        // 2.1. Determina a cor do marcador com base na precisão da última localização
+        // 2.1. Determina a cor do marcador com base na precisão estimada (ou da última localização);
+        // sem precisão informada pelo fix, o preditor usaria um padrão e o marcador fica branco
+        long nowNanos = SystemClock.elapsedRealtimeNanos();
+        boolean hasPrediction = predictor.predict(nowNanos, predicted);
         if (lastLocation != null && lastLocation.hasAccuracy()) {
-            float accuracy = lastLocation.getAccuracy();
+            float accuracy = hasPrediction ? (float) predicted[DeadReckoningPredictor.OUT_ACCURACY] : lastLocation.getAccuracy();
             if (accuracy < 5) { paint.setColor(Color.GREEN); }
             else if (accuracy < 20) { paint.setColor(Color.YELLOW); }
             else { paint.setColor(Color.RED); }
@@ -266,7 +594,7 @@ public class GNSSView extends View implements View.OnClickListener {
         }
 
         // 2.2. Desenha o estilo do marcador (ZenithMarkerStyle)
-        Paint zenithPaint = new Paint(paint);
+        zenithPaint.set(paint);
 
         switch (zenithStyle) {
             case ZENITH_CIRCLE:
@@ -279,88 +607,43 @@ public class GNSSView extends View implements View.OnClickListener {
                 canvas.drawLine(cx, cy - 16, cx, cy + 16, zenithPaint);
                 break;
             case ZENITH_STAR:
-                // --- CÓDIGO CORRIGIDO PARA ESTRELA ---
+                // Estrela pré-calculada em buildStarPath (centro fixo)
                 zenithPaint.setStyle(Paint.Style.FILL);
-                Path star = new Path();
-
-                // Parâmetros para os raios
-                final float outerRadius = 16f;
-                final float innerRadius = 8f;
-                final int numPoints = 5;
+                canvas.drawPath(starPath, zenithPaint);
+                break;
+        }
 
-                // Ponto inicial: ponta superior (-90 graus)
-                float startAngle = (float) Math.toRadians(-90);
+        // --- 2.3. Satélites previstos pelas órbitas mas ainda não rastreados (fantasmas, por baixo) ---
+        updatePredictions();
+        for (int i = 0; i < ghostCount; i++) {
+            drawGhostMarker(canvas, ghostX[i], ghostY[i], ghostLabel[i]);
+        }
 
-                // Calcula os 10 pontos (5 externos, 5 internos)
-                for (int i = 0; i < numPoints * 2; i++) {
-                    float currentRadius = (i % 2 == 0) ? outerRadius : innerRadius;
-                    float angle = (float) Math.toRadians(i * 36) + startAngle;
+        // --- 3. Desenho dos Satélites (já filtrados, projetados e agrupados em rebuildProjection) ---
+        for (int c = 0; c < levelOfDetail.getClusterCount(); c++) {
+            int slot = levelOfDetail.getClusterItem(c);
+            SatelliteAggregator.Satellite sat = satellites.get(projectedIndex[slot]);
+            float sat_cx = projectedX[slot];
+            float sat_cy = projectedY[slot];
 
-                    float x = (float) (cx + currentRadius * Math.cos(angle));
-                    float y = (float) (cy + currentRadius * Math.sin(angle));
+            // Desenha o LOGO do satélite (identificação visual)
+            drawSatelliteMarker(canvas, sat_cx, sat_cy, sat.constellation, sat.usedInFix);
 
-                    if (i == 0) {
-                        star.moveTo(x, y); // Começa no primeiro ponto externo
-                    } else {
-                        star.lineTo(x, y); // Liga sequencialmente
-                    }
-                }
+            // Contador de marcadores agrupados sob este
+            int clusterSize = levelOfDetail.getClusterSize(c);
+            if (clusterSize > 1) {
+                drawClusterBadge(canvas, sat_cx, sat_cy, clusterSize);
+            }
 
-                star.close();
-                canvas.drawPath(star, zenithPaint);
-                break;
+            // Desenha o ID do satélite (Texto), se houver espaço livre para ele
+            if (levelOfDetail.isLabelVisible(c)) {
+                canvas.drawText(projectedLabel[slot], levelOfDetail.getLabelX(c), levelOfDetail.getLabelY(c), labelPaint);
+            }
         }
 
-        // --- 3. Desenho e Filtragem dos Satélites ---
-        if (gnssStatus != null) {
-            int count = gnssStatus.getSatelliteCount();
-
-            for (int i = 0; i < count; i++) {
-                int constellation = gnssStatus.getConstellationType(i);
-                boolean usedInFix = gnssStatus.usedInFix(i);
-
-                // Aplica Filtros de Constelação e Uso (configuráveis pelo usuário)
-                boolean passesConstellationFilter = (constellation == GnssStatus.CONSTELLATION_GPS && showGPS) ||
-                        (constellation == GnssStatus.CONSTELLATION_GLONASS && showGLONASS) ||
-                        (constellation == GnssStatus.CONSTELLATION_GALILEO && showGALILEO) ||
-                        (constellation == GnssStatus.CONSTELLATION_BEIDOU && showBEIDOU) ||
-                        (constellation == GnssStatus.CONSTELLATION_QZSS || constellation == GnssStatus.CONSTELLATION_SBAS || constellation == GnssStatus.CONSTELLATION_UNKNOWN);
-
-                boolean passesUsedFilter = showUnused || usedInFix;
-
-                if (!passesConstellationFilter || !passesUsedFilter) {
-                    continue;
-                }
-
-                // Contagem
-                visibleCount++;
-                if (usedInFix) {
-                    usedCount++;
-                }
-
-                float az = gnssStatus.getAzimuthDegrees(i);
-                float el = gnssStatus.getElevationDegrees(i);
-
-                // Cálculo das Coordenadas (Projeção Azimutal Equidistante)
-                float dz = 90f - el;
-                float rho = r * dz / 90f;
-                float x = (float) (rho * Math.sin(Math.toRadians(az)));
-                float y = (float) (rho * Math.cos(Math.toRadians(az)));
-
-                float sat_cx = computeXc(x);
-                float sat_cy = computeYc(y);
-
-                // Desenha o LOGO do satélite (identificação visual)
-                drawSatelliteMarker(canvas, sat_cx, sat_cy, constellation, usedInFix);
-
-                // Desenha o ID do satélite (Texto)
-                paint.setColor(Color.WHITE);
-                paint.setTextAlign(Paint.Align.LEFT);
-                paint.setTextSize(25);
-                String satID = gnssStatus.getSvid(i) + "";
-                // O tamanho do ícone é 36px, ajusta a posição do texto
-                canvas.drawText(satID, sat_cx + 23, sat_cy + 8, paint);
-            }
+        // --- 3.1. Destaque e detalhes do satélite selecionado ---
+        if (selectedSlot >= 0) {
+            drawSelection(canvas, selectedSlot);
         }
 
         // --- 4. Desenho do Texto de Status (Contagens) ---
@@ -368,10 +651,162 @@ public class GNSSView extends View implements View.OnClickListener {
         paint.setTextSize(40);
         paint.setTextAlign(Paint.Align.LEFT);
 
-        String statusText1 = "Satélites Visíveis: " + visibleCount;
-        String statusText2 = "Satélites em Uso (Fix): " + usedCount;
-
+        // Textos montados em rebuildGhosts (uma vez por status/previsão)
         canvas.drawText(statusText1, 10, 50, paint);
         canvas.drawText(statusText2, 10, 100, paint);
+
+        // --- 5. Posição estimada (extrapolada a cada quadro entre os fixes) ---
+        if (hasPrediction) {
+            predictionText.setLength(0);
+            predictionText.append("Posição: ");
+            appendFixed(predictionText, predicted[DeadReckoningPredictor.OUT_LATITUDE], 6);
+            predictionText.append(", ");
+            appendFixed(predictionText, predicted[DeadReckoningPredictor.OUT_LONGITUDE], 6);
+            predictionText.append(" ±");
+            appendFixed(predictionText, predicted[DeadReckoningPredictor.OUT_ACCURACY], 1);
+            predictionText.append(" m");
+            canvas.drawText(predictionText, 0, predictionText.length(), 10, 150, paint);
+
+        }
+
+        // Mantém a animação na taxa da tela só enquanto a posição extrapolada muda (em movimento e
+        // dentro do horizonte); parado ou sem fixes, redesenha apenas quando chegam dados novos
+        if (predictor.isExtrapolating(nowNanos)) {
+            postInvalidateOnAnimation();
+        }
+
+        // --- 6. Overlay de latências (depuração) ---
+        if (showLatency) {
+            drawLatencyOverlay(canvas);
+        }
+
+        latency.record(PipelineLatencyTracker.STAGE_DRAW, PipelineLatencyTracker.now() - drawStart);
+    }
+
+    /**
+     * Desenha um satélite previsto e não rastreado: contorno translúcido com o SVID.
+     */
+    private void drawGhostMarker(Canvas canvas, float cx, float cy, String label) {
+        ghostPaint.setStyle(Paint.Style.STROKE);
+        canvas.drawCircle(cx, cy, ICON_SIZE / 2f, ghostPaint);
+        ghostPaint.setStyle(Paint.Style.FILL);
+        canvas.drawText(label, cx - ghostPaint.measureText(label) / 2, cy + 8, ghostPaint);
+    }
+
+    /**
+     * Desenha o contador de um grupo no canto superior direito do marcador.
+     */
+    private void drawClusterBadge(Canvas canvas, float cx, float cy, int clusterSize) {
+        float bx = cx + ICON_SIZE / 2f;
+        float by = cy - ICON_SIZE / 2f;
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(Color.DKGRAY);
+        canvas.drawCircle(bx, by, 13, paint);
+        paint.setColor(Color.WHITE);
+        paint.setTextSize(20);
+        paint.setTextAlign(Paint.Align.CENTER);
+        canvas.drawText(countLabel(clusterSize), bx, by + 7, paint);
+        paint.setTextAlign(Paint.Align.LEFT);
+    }
+
+    /**
+     * Destaca o satélite selecionado e mostra os detalhes montados em {@link #buildSelectionText()}.
+     */
+    private void drawSelection(Canvas canvas, int slot) {
+        // Se o selecionado ficou agrupado sob outro marcador, o destaque vai no marcador desenhado
+        int marker = levelOfDetail.getClusterItem(levelOfDetail.getItemCluster(slot));
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(4);
+        paint.setColor(Color.WHITE);
+        canvas.drawCircle(projectedX[marker], projectedY[marker], 28, paint);
+        paint.setStyle(Paint.Style.FILL);
+
+        paint.setTextSize(30);
+        paint.setTextAlign(Paint.Align.RIGHT);
+        float y = height - 20 - 36 * (selectionLines.length - 1);
+        for (String line : selectionLines) {
+            canvas.drawText(line, width - 10, y, paint);
+            y += 36;
+        }
+        paint.setTextAlign(Paint.Align.LEFT);
+    }
+
+    /**
+     * Monta SVID, constelação, C/N0 por banda, elevação/azimute e uso no fix do satélite
+     * selecionado. Chamado quando muda a seleção ou chega um status, não a cada quadro.
+     */
+    private void buildSelectionText() {
+        if (selectedSlot < 0) return;
+        SatelliteAggregator.Satellite sat = satellites.get(projectedIndex[selectedSlot]);
+
+        // C/N0 e uso no fix por banda (ex.: "L1 35.0 (fix) | L5 30.2")
+        StringBuilder bands = new StringBuilder();
+        for (int b = 0; b < sat.bandCount; b++) {
+            if (b > 0) bands.append(" | ");
+            bands.append(sat.bandName(b)).append(' ').append(sat.bandCn0DbHz[b]);
+            if (sat.bandUsedInFix[b]) bands.append(" (fix)");
+        }
+
+        selectionLines[0] = "SVID " + sat.svid + " (" + Constellations.name(sat.constellation) + ")";
+        selectionLines[1] = "C/N0 (dB-Hz): " + bands;
+        selectionLines[2] = "Elevação: " + sat.elevationDegrees + "º";
+        selectionLines[3] = "Azimute: " + sat.azimuthDegrees + "º";
+        selectionLines[4] = "Usado no fix: " + (sat.usedInFix ? "sim" : "não");
+    }
+
+    /**
+     * Desenha p50/p99/máximo de cada etapa do pipeline e os quadros perdidos.
+     */
+    private void drawLatencyOverlay(Canvas canvas) {
+        paint.setColor(Color.YELLOW);
+        paint.setTextSize(26);
+        paint.setTextAlign(Paint.Align.LEFT);
+
+        float y = height - 20 - 32 * (latencyLines.length - 1);
+        for (String line : latencyLines) {
+            if (line != null) canvas.drawText(line, 10, y, paint);
+            y += 32;
+        }
+    }
+
+    /** Monta as linhas do overlay de latências; chamado a cada status ou fix, não a cada quadro. */
+    private void buildLatencyText() {
+        for (int i = 0; i < PipelineLatencyTracker.STAGE_NAMES.length; i++) {
+            LatencyHistogram h = latency.getStage(i);
+            String line = PipelineLatencyTracker.STAGE_NAMES[i] + ": ";
+            if (h.getCount() == 0) {
+                line += "-";
+            } else {
+                line += "p50 " + formatMicros(h.getPercentileMicros(0.5))
+                        + " | p99 " + formatMicros(h.getPercentileMicros(0.99))
+                        + " | máx " + formatMicros(h.getMaxMicros());
+            }
+            latencyLines[i] = line;
+        }
+        latencyLines[latencyLines.length - 1] = "Quadros perdidos: " + latency.getMissedFrames()
+                + " (" + latency.getSlowFrames() + " atrasos)";
+    }
+
+    private static String countLabel(int n) {
+        return n < COUNT_LABELS.length ? COUNT_LABELS[n] : String.valueOf(n);
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1000) return micros + " µs";
+        return Math.round(micros / 100.0) / 10.0 + " ms";
+    }
+
+    /** Formata um número com casas decimais fixas sem alocar (Double.toString aloca). */
+    private static void appendFixed(StringBuilder sb, double value, int decimals) {
+        if (value < 0) { sb.append('-'); value = -value; }
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+        long scaled = Math.round(value * scale);
+        sb.append(scaled / scale);
+        if (decimals == 0) return;
+        sb.append('.');
+        long frac = scaled % scale;
+        for (long d = scale / 10; d > 1 && frac < d; d /= 10) sb.append('0');
+        sb.append(frac);
     }
 }
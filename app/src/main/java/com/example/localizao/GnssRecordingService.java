@@ -0,0 +1,419 @@
+package com.example.localizao;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.location.GnssStatus;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.ActivityCompat;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.ServiceCompat;
+import androidx.core.content.ContextCompat;
+
+import com.example.localizao.core.SessionFormat;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Serviço em primeiro plano que grava a sessão GNSS em arquivo, independente das Activities
+ * (continua com a tela desligada). As localizações são pedidas em lote: o receptor guarda os
+ * fixes e os entrega de uma vez a cada {@link #EXTRA_MAX_DELAY_MS}, então a CPU acorda uma vez
+ * por lote em vez de uma vez por fix. Cada lote é processado em uma única passada e escrito com
+ * uma única escrita no arquivo.
+ * <p>
+ * Arquivo {@code sessions/session-<timestamp>.csv} no formato de {@link SessionFormat}.
+ * As linhas de satélite só existem com {@link #EXTRA_RECORD_SATELLITES}.
+ */
+public class GnssRecordingService extends Service {
+    private static final String TAG = "GnssRecordingService";
+
+    public static final String ACTION_START = "com.example.localizao.action.START_RECORDING";
+    public static final String ACTION_STOP = "com.example.localizao.action.STOP_RECORDING";
+
+    public static final String EXTRA_SOURCE = "source";
+    public static final String EXTRA_INTERVAL_MS = "interval_ms";
+    public static final String EXTRA_MAX_DELAY_MS = "max_delay_ms";
+    // O GnssStatus não tem entrega em lote: gravar satélites acorda a CPU a cada status (~1 Hz)
+    public static final String EXTRA_RECORD_SATELLITES = "record_satellites";
+
+    public static final int SOURCE_FUSED = 0;
+    public static final int SOURCE_GPS = 1;
+
+    private static final long DEFAULT_INTERVAL_MS = 1000;
+    private static final long DEFAULT_MAX_DELAY_MS = 5 * 60 * 1000;
+
+    private static final String CHANNEL_ID = "gnss_recording";
+    private static final int NOTIFICATION_ID = 1;
+    private static final int FLUSH_REQUEST_CODE = 1;
+
+    private static volatile boolean running = false;
+
+    // Callbacks e escrita rodam nesta thread, fora da thread principal
+    private HandlerThread workerThread;
+    private Handler worker;
+
+    private int source = SOURCE_FUSED;
+    private FusedLocationProviderClient fusedLocationProviderClient;
+    private LocationCallback fusedCallback;
+    private LocationManager locationManager;
+    private LocationListener gpsListener;
+    private GnssStatus.Callback gnssCallback;
+    private final SatelliteAggregator satellites = new SatelliteAggregator();
+
+    private BufferedWriter writer;
+    private File sessionFile;
+    private long recordedFixes = 0;
+    private boolean stopping = false;
+
+    /** Inicia a gravação em primeiro plano. Requer ACCESS_FINE_LOCATION já concedida. */
+    public static void start(Context context, int source, boolean recordSatellites) {
+        // Sem a permissão o serviço não poderia cumprir o startForeground exigido; nem inicia
+        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "Sem permissão de localização; gravação não iniciada");
+            return;
+        }
+        Intent intent = new Intent(context, GnssRecordingService.class);
+        intent.setAction(ACTION_START);
+        intent.putExtra(EXTRA_SOURCE, source);
+        intent.putExtra(EXTRA_RECORD_SATELLITES, recordSatellites);
+        ContextCompat.startForegroundService(context, intent);
+    }
+
+    public static void stop(Context context) {
+        Intent intent = new Intent(context, GnssRecordingService.class);
+        intent.setAction(ACTION_STOP);
+        context.startService(intent);
+    }
+
+    public static boolean isRunning() { return running; }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        workerThread = new HandlerThread("GnssRecording");
+        workerThread.start();
+        worker = new Handler(workerThread.getLooper());
+        locationManager = (LocationManager) getSystemService(Context.LOCATION_SERVICE);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+            manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID, "Gravação GNSS", NotificationManager.IMPORTANCE_LOW));
+        }
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        String action = intent != null ? intent.getAction() : null;
+        if (ACTION_STOP.equals(action)) {
+            requestStop();
+            return START_NOT_STICKY;
+        }
+        if (running) return START_NOT_STICKY;
+
+        // Iniciado com startForegroundService: startForeground é obrigatório antes de qualquer
+        // stopSelf, senão o sistema encerra o app ("did not then call Service.startForeground()")
+        boolean permitted = ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+        try {
+            ServiceCompat.startForeground(this, NOTIFICATION_ID, buildNotification(),
+                    ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
+        } catch (SecurityException e) {
+            // Android 14+ recusa o tipo "location" sem a permissão
+            permitted = false;
+        }
+        if (!permitted) {
+            Log.w(TAG, "Sem permissão de localização; gravação não iniciada");
+            abortStart();
+            return START_NOT_STICKY;
+        }
+
+        source = intent.getIntExtra(EXTRA_SOURCE, SOURCE_FUSED);
+        long interval = intent.getLongExtra(EXTRA_INTERVAL_MS, DEFAULT_INTERVAL_MS);
+        long maxDelay = intent.getLongExtra(EXTRA_MAX_DELAY_MS, DEFAULT_MAX_DELAY_MS);
+        boolean recordSatellites = intent.getBooleanExtra(EXTRA_RECORD_SATELLITES, false);
+
+        try {
+            openSessionFile();
+        } catch (IOException e) {
+            Log.e(TAG, "Falha ao criar o arquivo da sessão", e);
+            abortStart();
+            return START_NOT_STICKY;
+        }
+
+        running = true;
+        if (source == SOURCE_GPS) {
+            startGpsUpdates(interval, maxDelay);
+        } else {
+            startFusedUpdates(interval, maxDelay);
+        }
+        if (recordSatellites) {
+            startSatelliteUpdates();
+        }
+        return START_NOT_STICKY;
+    }
+
+    private void startFusedUpdates(long interval, long maxDelay) {
+        fusedLocationProviderClient = LocationServices.getFusedLocationProviderClient(this);
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, interval)
+                .setMaxUpdateDelayMillis(maxDelay)
+                .build();
+        fusedCallback = new LocationCallback() {
+            @Override
+            public void onLocationResult(@NonNull LocationResult locationResult) {
+                writeLocations(locationResult.getLocations());
+            }
+        };
+        try {
+            fusedLocationProviderClient.requestLocationUpdates(request, fusedCallback, workerThread.getLooper());
+        } catch (SecurityException e) {
+            Log.e(TAG, "Permissão revogada", e);
+        }
+    }
+
+    private void startGpsUpdates(long interval, long maxDelay) {
+        gpsListener = new LocationListener() {
+            @Override
+            public void onLocationChanged(@NonNull Location location) {
+                writeLocations(Collections.singletonList(location));
+            }
+
+            // Lote entregue pelo receptor (API 31+): uma única passada e uma única escrita
+            @Override
+            public void onLocationChanged(@NonNull List<Location> locations) {
+                writeLocations(locations);
+            }
+
+            @Override
+            public void onFlushComplete(int requestCode) {
+                if (requestCode == FLUSH_REQUEST_CODE) finishStop();
+            }
+        };
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                android.location.LocationRequest request = new android.location.LocationRequest.Builder(interval)
+                        .setQuality(android.location.LocationRequest.QUALITY_HIGH_ACCURACY)
+                        .setMaxUpdateDelayMillis(maxDelay)
+                        .build();
+                locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, request, worker::post, gpsListener);
+            } else {
+                // Antes da API 31 o LocationManager não oferece entrega em lote
+                locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, interval, 0, gpsListener, workerThread.getLooper());
+            }
+        } catch (SecurityException e) {
+            Log.e(TAG, "Permissão revogada", e);
+        }
+    }
+
+    private void startSatelliteUpdates() {
+        gnssCallback = new GnssStatus.Callback() {
+            @Override
+            public void onSatelliteStatusChanged(@NonNull GnssStatus status) {
+                writeSatellites(status);
+            }
+        };
+        try {
+            locationManager.registerGnssStatusCallback(gnssCallback, worker);
+        } catch (SecurityException e) {
+            Log.e(TAG, "Permissão revogada", e);
+        }
+    }
+
+    private void openSessionFile() throws IOException {
+        File dir = getExternalFilesDir("sessions");
+        if (dir == null) dir = new File(getFilesDir(), "sessions");
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Não foi possível criar " + dir);
+        sessionFile = new File(dir, "session-" + System.currentTimeMillis() + ".csv");
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sessionFile), StandardCharsets.UTF_8));
+        writer.write(SessionFormat.HEADER + "\n");
+        writer.flush();
+        recordedFixes = 0;
+    }
+
+    /** Processa um lote de localizações em uma passada e o grava com uma única escrita. */
+    private void writeLocations(List<Location> locations) {
+        if (writer == null || locations == null || locations.isEmpty()) return;
+        StringBuilder sb = new StringBuilder(locations.size() * 96);
+        for (Location location : locations) {
+            sb.append(SessionFormat.LOCATION).append(SessionFormat.SEPARATOR).append(location.getElapsedRealtimeNanos() / 1_000_000L)
+                    .append(',').append(location.getTime())
+                    .append(',').append(location.getLatitude())
+                    .append(',').append(location.getLongitude())
+                    .append(',');
+            if (location.hasAltitude()) sb.append(location.getAltitude());
+            sb.append(',');
+            if (location.hasAccuracy()) sb.append(location.getAccuracy());
+            sb.append(',');
+            if (location.hasSpeed()) sb.append(location.getSpeed());
+            sb.append(',');
+            if (location.hasBearing()) sb.append(location.getBearing());
+            sb.append('\n');
+        }
+        recordedFixes += locations.size();
+        write(sb);
+        updateNotification();
+    }
+
+    private void writeSatellites(GnssStatus status) {
+        if (writer == null) return;
+        satellites.update(status);
+        long elapsedMs = SystemClock.elapsedRealtime();
+        StringBuilder sb = new StringBuilder(satellites.getCount() * 48);
+        for (int i = 0; i < satellites.getCount(); i++) {
+            SatelliteAggregator.Satellite sat = satellites.get(i);
+            sb.append(SessionFormat.SATELLITE).append(SessionFormat.SEPARATOR).append(elapsedMs)
+                    .append(',').append(sat.constellation)
+                    .append(',').append(sat.svid)
+                    .append(',').append(sat.azimuthDegrees)
+                    .append(',').append(sat.elevationDegrees)
+                    .append(',').append(sat.maxCn0DbHz)
+                    .append(',').append(sat.usedInFix ? 1 : 0)
+                    .append('\n');
+        }
+        write(sb);
+    }
+
+    private void write(StringBuilder sb) {
+        try {
+            writer.append(sb);
+            writer.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Falha ao gravar a sessão", e);
+        }
+    }
+
+    /**
+     * Pede ao provedor a entrega dos fixes ainda retidos no lote e só então encerra, para não
+     * perder até {@link #EXTRA_MAX_DELAY_MS} de dados.
+     */
+    private void requestStop() {
+        if (!running || stopping) {
+            if (!running) stopSelf();
+            return;
+        }
+        stopping = true;
+        if (fusedLocationProviderClient != null) {
+            fusedLocationProviderClient.flushLocations()
+                    .addOnCompleteListener(task -> worker.post(this::finishStop));
+        } else if (gpsListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            locationManager.requestFlush(LocationManager.GPS_PROVIDER, gpsListener, FLUSH_REQUEST_CODE);
+        } else {
+            worker.post(this::finishStop);
+        }
+    }
+
+    /** Desfaz um início que falhou depois do startForeground (remove a notificação e para). */
+    private void abortStart() {
+        ServiceCompat.stopForeground(this, ServiceCompat.STOP_FOREGROUND_REMOVE);
+        stopSelf();
+    }
+
+    /** Executado na thread de trabalho, depois da última entrega. */
+    private void finishStop() {
+        if (!running) return;
+        running = false;
+        removeUpdates();
+        closeSessionFile();
+        ServiceCompat.stopForeground(this, ServiceCompat.STOP_FOREGROUND_REMOVE);
+        stopSelf();
+    }
+
+    private void removeUpdates() {
+        if (fusedLocationProviderClient != null && fusedCallback != null) {
+            fusedLocationProviderClient.removeLocationUpdates(fusedCallback);
+        }
+        if (gpsListener != null) {
+            locationManager.removeUpdates(gpsListener);
+        }
+        if (gnssCallback != null) {
+            locationManager.unregisterGnssStatusCallback(gnssCallback);
+        }
+        fusedCallback = null;
+        gpsListener = null;
+        gnssCallback = null;
+    }
+
+    private void closeSessionFile() {
+        if (writer == null) return;
+        try {
+            writer.close();
+            Log.i(TAG, "Sessão gravada em " + sessionFile.getAbsolutePath() + " (" + recordedFixes + " fixes)");
+        } catch (IOException e) {
+            Log.e(TAG, "Falha ao fechar a sessão", e);
+        }
+        writer = null;
+    }
+
+    private Notification buildNotification() {
+        Intent stopIntent = new Intent(this, GnssRecordingService.class);
+        stopIntent.setAction(ACTION_STOP);
+        PendingIntent stopPending = PendingIntent.getService(this, 0, stopIntent, PendingIntent.FLAG_IMMUTABLE);
+
+        Intent openIntent = new Intent(this, MainActivity.class);
+        PendingIntent openPending = PendingIntent.getActivity(this, 0, openIntent, PendingIntent.FLAG_IMMUTABLE);
+
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_menu_mylocation)
+                .setContentTitle("Gravando sessão GNSS")
+                .setContentText("Fixes gravados: " + recordedFixes)
+                .setContentIntent(openPending)
+                .addAction(android.R.drawable.ic_menu_close_clear_cancel, "Parar", stopPending)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .build();
+    }
+
+    private void updateNotification() {
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        manager.notify(NOTIFICATION_ID, buildNotification());
+    }
+
+    @Override
+    public void onDestroy() {
+        // Encerra na thread de trabalho, depois de qualquer escrita pendente
+        worker.post(() -> {
+            if (running) {
+                running = false;
+                removeUpdates();
+                closeSessionFile();
+            }
+        });
+        workerThread.quitSafely();
+        super.onDestroy();
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) { return null; }
+}
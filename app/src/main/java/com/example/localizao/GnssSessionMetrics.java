@@ -0,0 +1,246 @@
+package com.example.localizao;
+
+import android.location.Location;
+import android.os.Build;
+import android.os.SystemClock;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentação de uma sessão GNSS: marcos de tempo até o primeiro fix, até o primeiro satélite
+ * usado no fix e até o primeiro fix com precisão abaixo de 5 m, além de contadores da sessão.
+ * <p>
+ * Usa o relógio monotônico ({@link SystemClock#elapsedRealtimeNanos()}) e apenas contadores
+ * atômicos, então pode ser alimentada de qualquer thread sem bloqueio.
+ */
+public class GnssSessionMetrics {
+    private static final float GOOD_ACCURACY_M = 5f;
+    // Um intervalo entre fixes maior que este múltiplo do esperado conta como falha (gap)
+    private static final int GAP_FACTOR = 2;
+    // Histórico de satélites usados: um valor (máximo) por minuto, até 24 h
+    private static final int HISTORY_MINUTES = 24 * 60;
+
+    private final long expectedIntervalNanos;
+
+    // Marcos (0 = ainda não ocorreu), em nanos desde o início da sessão
+    private final AtomicLong startNanos = new AtomicLong(0);
+    private final AtomicLong endNanos = new AtomicLong(0); // Instante de stop() (0 = em andamento)
+    private final AtomicLong firstFixNanos = new AtomicLong(0);
+    private final AtomicLong firstUsedSatelliteNanos = new AtomicLong(0);
+    private final AtomicLong firstGoodFixNanos = new AtomicLong(0);
+    private final AtomicLong platformTtffMillis = new AtomicLong(0);
+
+    // Contadores da sessão
+    private final LongAdder fixCount = new LongAdder();
+    private final LongAdder statusCount = new LongAdder();
+    private final LongAdder gapCount = new LongAdder();
+    private final LongAdder usedSatelliteSum = new LongAdder();
+    private final AtomicLong lastFixTimeNanos = new AtomicLong(0);
+    private final AtomicLong maxGapNanos = new AtomicLong(0);
+    private final AtomicInteger maxUsedSatellites = new AtomicInteger(0);
+    private final AtomicIntegerArray usedPerMinute = new AtomicIntegerArray(HISTORY_MINUTES);
+    private final AtomicInteger historyLength = new AtomicInteger(0);
+
+    /** @param expectedIntervalMillis intervalo de fix solicitado ao provedor */
+    public GnssSessionMetrics(long expectedIntervalMillis) {
+        this.expectedIntervalNanos = expectedIntervalMillis * 1_000_000L;
+    }
+
+    /** Inicia (ou reinicia) a sessão. Chamar junto com o registro dos escutadores. */
+    public void start() {
+        firstFixNanos.set(0);
+        firstUsedSatelliteNanos.set(0);
+        firstGoodFixNanos.set(0);
+        platformTtffMillis.set(0);
+        fixCount.reset();
+        statusCount.reset();
+        gapCount.reset();
+        usedSatelliteSum.reset();
+        lastFixTimeNanos.set(0);
+        maxGapNanos.set(0);
+        maxUsedSatellites.set(0);
+        for (int i = 0; i < HISTORY_MINUTES; i++) usedPerMinute.set(i, 0);
+        historyLength.set(0);
+        endNanos.set(0);
+        startNanos.set(SystemClock.elapsedRealtimeNanos());
+    }
+
+    /**
+     * Encerra a sessão: congela a duração e a taxa de fixes e conta como falha o intervalo aberto
+     * entre o último fix e o stop, se for longo. Chamar ao remover os escutadores, antes do dump.
+     */
+    public void stop() {
+        if (startNanos.get() == 0) return;
+        long now = SystemClock.elapsedRealtimeNanos();
+        if (!endNanos.compareAndSet(0, now)) return; // Já encerrada
+
+        long lastFix = lastFixTimeNanos.get();
+        if (lastFix != 0) recordInterval(now - lastFix);
+    }
+
+    public boolean isStarted() { return startNanos.get() != 0; }
+
+    private boolean isRunning() { return startNanos.get() != 0 && endNanos.get() == 0; }
+
+    /** Recebe os satélites já agregados, para não contar duas vezes os de dupla frequência. */
+    public void onSatelliteStatus(SatelliteAggregator satellites) {
+        long start = startNanos.get();
+        if (!isRunning() || satellites == null) return;
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+
+        int used = satellites.getUsedCount();
+
+        statusCount.increment();
+        usedSatelliteSum.add(used);
+        updateMax(maxUsedSatellites, used);
+        if (used > 0) markOnce(firstUsedSatelliteNanos, elapsed);
+
+        int minute = (int) (elapsed / 60_000_000_000L);
+        if (minute < HISTORY_MINUTES) {
+            int previous;
+            do {
+                previous = usedPerMinute.get(minute);
+            } while (used > previous && !usedPerMinute.compareAndSet(minute, previous, used));
+            updateMax(historyLength, minute + 1);
+        }
+    }
+
+    public void onLocation(Location location) {
+        long start = startNanos.get();
+        if (!isRunning() || location == null) return;
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+
+        fixCount.increment();
+        markOnce(firstFixNanos, elapsed);
+        if (location.hasAccuracy() && location.getAccuracy() < GOOD_ACCURACY_M)
+            markOnce(firstGoodFixNanos, elapsed);
+
+        // Falhas: usa o instante do fix (mesma base monotônica) para não contar atrasos de entrega
+        long fixTime = location.getElapsedRealtimeNanos();
+        long previous = lastFixTimeNanos.getAndSet(fixTime);
+        if (previous != 0) recordInterval(fixTime - previous);
+    }
+
+    /** Conta o intervalo sem fix como falha se passar de GAP_FACTOR vezes o esperado. */
+    private void recordInterval(long interval) {
+        if (interval <= GAP_FACTOR * expectedIntervalNanos) return;
+        gapCount.increment();
+        long max;
+        do {
+            max = maxGapNanos.get();
+        } while (interval > max && !maxGapNanos.compareAndSet(max, interval));
+    }
+
+    /** TTFF informado pela plataforma em {@code GnssStatus.Callback.onFirstFix}. */
+    public void onFirstFix(int ttffMillis) {
+        if (isRunning()) platformTtffMillis.compareAndSet(0, ttffMillis);
+    }
+
+    private static void markOnce(AtomicLong milestone, long elapsedNanos) {
+        // Nunca grava 0 (reservado para "não ocorreu")
+        milestone.compareAndSet(0, Math.max(elapsedNanos, 1));
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int current;
+        do {
+            current = max.get();
+        } while (value > current && !max.compareAndSet(current, value));
+    }
+
+    /** Duração da sessão até agora, ou até stop() se já encerrada. */
+    private long sessionNanos() {
+        long start = startNanos.get();
+        if (start == 0) return 0;
+        long end = endNanos.get();
+        return (end != 0 ? end : SystemClock.elapsedRealtimeNanos()) - start;
+    }
+
+    /** Taxa de fixes recebidos (fixes por segundo) entre o início e o fim da sessão. */
+    private double fixRate() {
+        long nanos = sessionNanos();
+        return nanos == 0 ? 0 : fixCount.sum() / (nanos / 1e9);
+    }
+
+    private double meanUsedSatellites() {
+        long n = statusCount.sum();
+        return n == 0 ? 0 : (double) usedSatelliteSum.sum() / n;
+    }
+
+    /** Resumo legível para o painel da aplicação. */
+    public String toSummaryText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Duração da sessão: ").append(formatMillis(sessionNanos())).append("\n");
+        sb.append("Primeiro fix: ").append(formatMillis(firstFixNanos.get())).append("\n");
+        sb.append("TTFF (plataforma): ").append(platformTtffMillis.get() == 0 ? "-" : platformTtffMillis.get() + " ms").append("\n");
+        sb.append("Primeiro satélite no fix: ").append(formatMillis(firstUsedSatelliteNanos.get())).append("\n");
+        sb.append("Primeiro fix < 5 m: ").append(formatMillis(firstGoodFixNanos.get())).append("\n");
+        sb.append("Fixes: ").append(fixCount.sum())
+                .append(" (").append(Math.round(fixRate() * 100) / 100.0).append(" /s)\n");
+        sb.append("Falhas: ").append(gapCount.sum())
+                .append(" (maior: ").append(formatMillis(maxGapNanos.get())).append(")\n");
+        sb.append("Satélites no fix: média ").append(Math.round(meanUsedSatellites() * 10) / 10.0)
+                .append(", máximo ").append(maxUsedSatellites.get()).append("\n");
+        return sb.toString();
+    }
+
+    /** Dump legível por máquina (JSON) para comparar aparelhos e versões de firmware. */
+    public String toJson() {
+        try {
+            JSONObject device = new JSONObject();
+            device.put("manufacturer", Build.MANUFACTURER);
+            device.put("model", Build.MODEL);
+            device.put("fingerprint", Build.FINGERPRINT);
+            device.put("sdk", Build.VERSION.SDK_INT);
+
+            JSONObject milestones = new JSONObject();
+            milestones.put("firstFixMs", toMillisOrNull(firstFixNanos.get()));
+            milestones.put("platformTtffMs", platformTtffMillis.get() == 0 ? JSONObject.NULL : platformTtffMillis.get());
+            milestones.put("firstUsedSatelliteMs", toMillisOrNull(firstUsedSatelliteNanos.get()));
+            milestones.put("firstFixUnder5mMs", toMillisOrNull(firstGoodFixNanos.get()));
+
+            JSONObject counters = new JSONObject();
+            counters.put("fixes", fixCount.sum());
+            counters.put("statusUpdates", statusCount.sum());
+            counters.put("fixRatePerSecond", fixRate());
+            counters.put("gaps", gapCount.sum());
+            counters.put("maxGapMs", maxGapNanos.get() / 1_000_000L);
+            counters.put("meanUsedSatellites", meanUsedSatellites());
+            counters.put("maxUsedSatellites", maxUsedSatellites.get());
+
+            JSONArray history = new JSONArray();
+            int length = historyLength.get();
+            for (int i = 0; i < length; i++) history.put(usedPerMinute.get(i));
+
+            JSONObject root = new JSONObject();
+            root.put("device", device);
+            root.put("expectedIntervalMs", expectedIntervalNanos / 1_000_000L);
+            root.put("sessionMs", sessionNanos() / 1_000_000L);
+            root.put("milestones", milestones);
+            root.put("counters", counters);
+            root.put("usedSatellitesPerMinute", history);
+            return root.toString(2);
+        } catch (JSONException e) {
+            // Só ocorre com valores não finitos; não deve acontecer aqui
+            return "{}";
+        }
+    }
+
+    private static Object toMillisOrNull(long nanos) {
+        return nanos == 0 ? JSONObject.NULL : (Object) (nanos / 1_000_000L);
+    }
+
+    private static String formatMillis(long nanos) {
+        if (nanos == 0) return "-";
+        long ms = nanos / 1_000_000L;
+        if (ms < 10_000) return ms + " ms";
+        return Math.round(ms / 100.0) / 10.0 + " s";
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.localizao;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latências com intervalos fixos no estilo HdrHistogram: escala log-linear com 16
+ * sub-intervalos por potência de 2 (erro relativo ≤ 6,25%). Os valores são gravados em
+ * microssegundos, de 0 a ~2^30 µs (~18 min); valores maiores caem no último intervalo.
+ * <p>
+ * Gravação sem bloqueio e sem alocação; pode ser alimentado de qualquer thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_MSB = 30;
+    private static final int BUCKETS = (MAX_MSB - SUB_BITS + 2) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong(0);
+    private final AtomicLong maxMicros = new AtomicLong(0);
+
+    public void recordNanos(long nanos) {
+        if (nanos < 0) nanos = 0;
+        long micros = nanos / 1000;
+        counts.incrementAndGet(indexFor(micros));
+        total.incrementAndGet();
+        long max;
+        do {
+            max = maxMicros.get();
+        } while (micros > max && !maxMicros.compareAndSet(max, micros));
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        maxMicros.set(0);
+    }
+
+    public long getCount() { return total.get(); }
+
+    public long getMaxMicros() { return maxMicros.get(); }
+
+    /**
+     * Valor (limite superior do intervalo) abaixo do qual está a fração {@code p} das amostras.
+     *
+     * @param p percentil entre 0 e 1 (ex.: 0.99)
+     */
+    public long getPercentileMicros(double p) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(highestValueIn(i), maxMicros.get());
+        }
+        return maxMicros.get();
+    }
+
+    static int indexFor(long value) {
+        if (value < 2 * SUB_COUNT) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        if (msb > MAX_MSB) return BUCKETS - 1;
+        int shift = msb - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) ((value >> shift) - SUB_COUNT);
+    }
+
+    static long highestValueIn(int index) {
+        if (index < 2 * SUB_COUNT) return index;
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
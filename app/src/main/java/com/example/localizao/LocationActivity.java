@@ -25,6 +25,8 @@ public class LocationActivity extends AppCompatActivity {
     private FusedLocationProviderClient fusedLocationProviderClient;
     private LocationRequest locationRequest;
     private LocationCallback locationCallback;
+    // Gráfico da sessão (precisão, altitude e velocidade)
+    private TimeSeriesView timeSeriesView;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,6 +35,7 @@ public class LocationActivity extends AppCompatActivity {
 
         Button btnStart = findViewById(R.id.buttonStart);
         Button btnStop = findViewById(R.id.buttonStop);
+        timeSeriesView = findViewById(R.id.timeSeriesView);
 
         btnStart.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -54,6 +57,8 @@ public class LocationActivity extends AppCompatActivity {
                 Manifest.permission.ACCESS_FINE_LOCATION) ==
                 PackageManager.PERMISSION_GRANTED) {
             // A permissão foi dada– OK vá em frente
+            // Nova sessão: descarta a série anterior
+            timeSeriesView.clear();
 
             // Cria o cliente (FusedLocationProviderClient)
             fusedLocationProviderClient = LocationServices.getFusedLocationProviderClient(this);
@@ -70,6 +75,7 @@ public class LocationActivity extends AppCompatActivity {
                     Location location = locationResult.getLastLocation();
                     // Processa a localização aqui
                     atualizaLocationTextView(location);
+                    timeSeriesView.newLocation(location);
                 }
             };
 
@@ -1,17 +1,29 @@
 package com.example.localizao;
 
+import android.Manifest;
 import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.app.ActivityCompat;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
 public class MainActivity extends AppCompatActivity {
+    private static final int REQUEST_RECORDING = 1;
+    private static final int REQUEST_NOTIFICATIONS = 2;
+    private Button buttonRecord;
+    // Grava também os satélites (linhas S), necessários para cobertura do céu no analisador
+    private CheckBox checkRecordSatellites;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -41,5 +53,76 @@ public class MainActivity extends AppCompatActivity {
                 startActivity(i);
             }
         });
+        checkRecordSatellites = (CheckBox) findViewById(R.id.checkRecordSatellites);
+        buttonRecord = (Button) findViewById(R.id.buttonRecord);
+        buttonRecord.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (GnssRecordingService.isRunning()) {
+                    GnssRecordingService.stop(MainActivity.this);
+                    buttonRecord.setText(R.string.btn_record_start_txt);
+                    checkRecordSatellites.setEnabled(true);
+                } else {
+                    startRecording();
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        buttonRecord.setText(GnssRecordingService.isRunning() ? R.string.btn_record_stop_txt : R.string.btn_record_start_txt);
+        checkRecordSatellites.setEnabled(!GnssRecordingService.isRunning());
+    }
+
+    /** Inicia a gravação em segundo plano (serviço em primeiro plano com entrega em lote). */
+    private void startRecording() {
+        // A notificação do serviço (e a ação "Parar") precisa de permissão própria a partir do
+        // Android 13, independente da localização já ter sido concedida em outra tela
+        boolean needsNotifications = Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ActivityCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED;
+
+        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            beginRecording();
+            if (needsNotifications) {
+                ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.POST_NOTIFICATIONS}, REQUEST_NOTIFICATIONS);
+            }
+        } else {
+            String[] permissions = needsNotifications
+                    ? new String[]{Manifest.permission.ACCESS_FINE_LOCATION, Manifest.permission.POST_NOTIFICATIONS}
+                    : new String[]{Manifest.permission.ACCESS_FINE_LOCATION};
+            ActivityCompat.requestPermissions(this, permissions, REQUEST_RECORDING);
+        }
+    }
+
+    private void beginRecording() {
+        GnssRecordingService.start(this, GnssRecordingService.SOURCE_FUSED, checkRecordSatellites.isChecked());
+        buttonRecord.setText(R.string.btn_record_stop_txt);
+        checkRecordSatellites.setEnabled(false);
+    }
+
+    private static boolean isGranted(String permission, String[] permissions, int[] grantResults) {
+        for (int i = 0; i < permissions.length && i < grantResults.length; i++) {
+            if (permission.equals(permissions[i])) return grantResults[i] == PackageManager.PERMISSION_GRANTED;
+        }
+        return false;
+    }
+
+    @Override
+    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        if (requestCode == REQUEST_RECORDING) {
+            // Não chama startRecording de novo: a notificação já foi perguntada neste mesmo pedido
+            if (isGranted(Manifest.permission.ACCESS_FINE_LOCATION, permissions, grantResults)) {
+                beginRecording();
+            } else {
+                Toast.makeText(this, "Sem permissão para gravar a sessão GNSS", Toast.LENGTH_SHORT).show();
+            }
+        } else if (requestCode == REQUEST_NOTIFICATIONS) {
+            if (!isGranted(Manifest.permission.POST_NOTIFICATIONS, permissions, grantResults)) {
+                Toast.makeText(this, "Gravando sem notificação; use o botão desta tela para parar", Toast.LENGTH_LONG).show();
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.example.localizao;
+
+/**
+ * Série temporal com resumo de tamanho fixo (agregação M4: primeiro, último, mínimo e máximo
+ * por intervalo de tempo). Quando os intervalos acabam, pares vizinhos são fundidos e a duração
+ * de cada intervalo dobra, de modo que memória e custo de desenho não crescem com a sessão.
+ * <p>
+ * Várias séries ficam no mesmo eixo de tempo (mesma origem e mesma duração de intervalo) se
+ * todas receberem {@link #advanceTo(long)} com os mesmos instantes, tenham ou não amostra neles.
+ */
+public class MinMaxSeries {
+    private final int capacity;
+    private final long initialBucketMs;
+
+    private final float[] first;
+    private final float[] last;
+    private final float[] min;
+    private final float[] max;
+    private final int[] counts;
+
+    private long startMs = -1;
+    private long bucketMs;
+    private int size = 0; // Número de intervalos em uso (índice do último + 1)
+
+    private float overallMin = Float.POSITIVE_INFINITY;
+    private float overallMax = Float.NEGATIVE_INFINITY;
+    private float latest = Float.NaN;
+    private long latestMs = -1;
+
+    /**
+     * @param capacity número de intervalos mantidos (deve ser par)
+     * @param initialBucketMs duração inicial de cada intervalo, em milissegundos
+     */
+    public MinMaxSeries(int capacity, long initialBucketMs) {
+        if (capacity < 2 || capacity % 2 != 0)
+            throw new IllegalArgumentException("capacity deve ser par e >= 2");
+        if (initialBucketMs <= 0)
+            throw new IllegalArgumentException("initialBucketMs deve ser positivo");
+        this.capacity = capacity;
+        this.initialBucketMs = initialBucketMs;
+        this.bucketMs = initialBucketMs;
+        first = new float[capacity];
+        last = new float[capacity];
+        min = new float[capacity];
+        max = new float[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * Fixa a origem (no primeiro instante recebido) e compacta até que {@code timeMs} caiba nos
+     * intervalos, mesmo sem amostra. Chamado por {@link #add(long, float)}.
+     */
+    public void advanceTo(long timeMs) {
+        if (startMs < 0) startMs = timeMs;
+        long offset = Math.max(0, timeMs - startMs);
+        while (offset / bucketMs >= capacity) compact();
+    }
+
+    /** Adiciona uma amostra. Amostras fora de ordem são atribuídas ao intervalo mais recente. */
+    public void add(long timeMs, float value) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) return;
+        advanceTo(timeMs);
+
+        int index = (int) (Math.max(0, timeMs - startMs) / bucketMs);
+        if (index < size - 1) index = size - 1;
+
+        if (counts[index] == 0) {
+            first[index] = value;
+            min[index] = value;
+            max[index] = value;
+        } else {
+            if (value < min[index]) min[index] = value;
+            if (value > max[index]) max[index] = value;
+        }
+        last[index] = value;
+        counts[index]++;
+        if (index + 1 > size) size = index + 1;
+
+        if (value < overallMin) overallMin = value;
+        if (value > overallMax) overallMax = value;
+        latest = value;
+        latestMs = timeMs;
+    }
+
+    /** Funde pares de intervalos vizinhos e dobra a duração de cada intervalo. */
+    private void compact() {
+        int half = capacity / 2;
+        for (int i = 0; i < half; i++) {
+            int a = 2 * i, b = a + 1;
+            if (counts[a] == 0 && counts[b] == 0) {
+                counts[i] = 0;
+                continue;
+            }
+            if (counts[a] == 0) {
+                first[i] = first[b]; last[i] = last[b]; min[i] = min[b]; max[i] = max[b];
+            } else if (counts[b] == 0) {
+                first[i] = first[a]; last[i] = last[a]; min[i] = min[a]; max[i] = max[a];
+            } else {
+                first[i] = first[a];
+                last[i] = last[b];
+                min[i] = Math.min(min[a], min[b]);
+                max[i] = Math.max(max[a], max[b]);
+            }
+            counts[i] = counts[a] + counts[b];
+        }
+        for (int i = half; i < capacity; i++) counts[i] = 0;
+        size = (size + 1) / 2;
+        bucketMs *= 2;
+    }
+
+    public void clear() {
+        for (int i = 0; i < capacity; i++) counts[i] = 0;
+        startMs = -1;
+        bucketMs = initialBucketMs;
+        size = 0;
+        overallMin = Float.POSITIVE_INFINITY;
+        overallMax = Float.NEGATIVE_INFINITY;
+        latest = Float.NaN;
+        latestMs = -1;
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+    public int capacity() { return capacity; }
+    public long getStartMs() { return startMs; }
+    public long getBucketMs() { return bucketMs; }
+    public long getLatestMs() { return latestMs; }
+    public float getLatest() { return latest; }
+    public float getOverallMin() { return overallMin; }
+    public float getOverallMax() { return overallMax; }
+
+    public boolean hasData(int i) { return counts[i] > 0; }
+    public float getFirst(int i) { return first[i]; }
+    public float getLast(int i) { return last[i]; }
+    public float getMin(int i) { return min[i]; }
+    public float getMax(int i) { return max[i]; }
+}
@@ -0,0 +1,95 @@
+package com.example.localizao;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latências do caminho receptor → callback → processamento → fila → desenho, cada etapa em um
+ * {@link LatencyHistogram}. Também conta quadros perdidos: intervalos entre vsyncs consecutivos
+ * (via {@code Choreographer}) acima de 1,5x o período da tela, indicando que a thread principal
+ * travou e a tela deixou de ser atualizada.
+ */
+public class PipelineLatencyTracker {
+    // Do instante do fix (relógio do receptor) até a entrega ao callback. O GnssStatus não traz
+    // instante de medição, então esta etapa só é medida para localizações.
+    public static final int STAGE_CALLBACK = 0;
+    // Tempo gasto processando os dados recebidos (newStatus/newLocation)
+    public static final int STAGE_PROCESSING = 1;
+    // Do pedido de redesenho (invalidate) até o início do onDraw
+    public static final int STAGE_QUEUE = 2;
+    // Duração do onDraw
+    public static final int STAGE_DRAW = 3;
+
+    public static final String[] STAGE_NAMES = { "Callback", "Processamento", "Fila", "Desenho" };
+
+    // Intervalo entre quadros acima deste múltiplo do período da tela conta como atraso
+    private static final double JANK_FACTOR = 1.5;
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[STAGE_NAMES.length];
+    private final LongAdder missedFrames = new LongAdder();
+    private final LongAdder slowFrames = new LongAdder();
+    // Monitoramento de quadros (só na thread principal)
+    private long frameIntervalNanos = 0;
+    private long lastFrameNanos = 0;
+    // Instante (nanos) da atualização mais antiga ainda não desenhada; 0 = nenhuma pendente
+    private final AtomicLong pendingSinceNanos = new AtomicLong(0);
+
+    public PipelineLatencyTracker() {
+        for (int i = 0; i < stages.length; i++) stages[i] = new LatencyHistogram();
+    }
+
+    public static long now() { return SystemClock.elapsedRealtimeNanos(); }
+
+    public void record(int stage, long nanos) { stages[stage].recordNanos(nanos); }
+
+    public LatencyHistogram getStage(int stage) { return stages[stage]; }
+
+    /** Vsyncs em que a tela deveria ter sido atualizada e não foi. */
+    public long getMissedFrames() { return missedFrames.sum(); }
+
+    /** Quadros que chegaram com atraso (cada um pode ter perdido um ou mais vsyncs). */
+    public long getSlowFrames() { return slowFrames.sum(); }
+
+    /** Chamar ao pedir redesenho por causa de novos dados. */
+    public void onUpdateQueued(long nowNanos) {
+        pendingSinceNanos.compareAndSet(0, nowNanos);
+    }
+
+    /**
+     * Inicia (ou retoma) a contagem de quadros, com o período de vsync da tela. O intervalo até o
+     * próximo {@link #onFrame(long)} não é contado.
+     */
+    public void startFrameMonitoring(long frameIntervalNanos) {
+        this.frameIntervalNanos = frameIntervalNanos;
+        lastFrameNanos = 0;
+    }
+
+    /** Chamar a cada {@code Choreographer.FrameCallback.doFrame}, com o instante do vsync. */
+    public void onFrame(long frameTimeNanos) {
+        long previous = lastFrameNanos;
+        lastFrameNanos = frameTimeNanos;
+        if (previous == 0 || frameIntervalNanos <= 0) return;
+        long interval = frameTimeNanos - previous;
+        if (interval > JANK_FACTOR * frameIntervalNanos) {
+            slowFrames.increment();
+            // Arredonda para o número de vsyncs decorridos; o primeiro é o quadro desenhado
+            missedFrames.add(Math.round((double) interval / frameIntervalNanos) - 1);
+        }
+    }
+
+    /** Chamar no início do onDraw; registra a espera na fila se havia dados pendentes. */
+    public void onDrawStarted(long nowNanos) {
+        long since = pendingSinceNanos.getAndSet(0);
+        if (since != 0) record(STAGE_QUEUE, nowNanos - since);
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : stages) h.reset();
+        missedFrames.reset();
+        slowFrames.reset();
+        lastFrameNanos = 0;
+        pendingSinceNanos.set(0);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.localizao;
+
+import android.location.GnssStatus;
+import android.os.Build;
+
+import java.util.Arrays;
+
+/**
+ * Agrega as entradas de um {@link GnssStatus} por constelação + SVID. Aparelhos de dupla
+ * frequência reportam o mesmo satélite uma vez por portadora (ex.: L1 e L5, E1 e E5a); aqui elas
+ * viram um único registro com C/N0 e uso no fix por banda.
+ * <p>
+ * Calculado uma vez por status. Os registros são reaproveitados entre chamadas.
+ */
+public class SatelliteAggregator {
+    public static final int MAX_BANDS = 4;
+
+    /** Um satélite (constelação + SVID) com os dados de cada banda recebida. */
+    public static class Satellite {
+        public int constellation;
+        public int svid;
+        public float azimuthDegrees;
+        public float elevationDegrees;
+        public boolean usedInFix;      // Usado no fix em qualquer banda
+        public float maxCn0DbHz;
+
+        public int bandCount;
+        public final float[] bandFrequencyHz = new float[MAX_BANDS]; // 0 se desconhecida
+        public final float[] bandCn0DbHz = new float[MAX_BANDS];
+        public final boolean[] bandUsedInFix = new boolean[MAX_BANDS];
+
+        /** Nome da banda {@code b} a partir da frequência da portadora. */
+        public String bandName(int b) {
+            return SatelliteAggregator.bandName(constellation, bandFrequencyHz[b]);
+        }
+    }
+
+    private Satellite[] satellites = new Satellite[0];
+    private int count = 0;
+    private int usedCount = 0;
+
+    // Tabela hash de endereçamento aberto: chave (constelação, SVID) → índice em satellites
+    private int[] tableKeys = new int[0];
+    private int[] tableValues = new int[0];
+
+    public int getCount() { return count; }
+
+    /** Número de satélites (não de sinais) usados no fix. */
+    public int getUsedCount() { return usedCount; }
+
+    public Satellite get(int i) { return satellites[i]; }
+
+    /** Índice do satélite (constelação + SVID) no último status, ou -1 se não estiver nele. */
+    public int indexOf(int constellation, int svid) {
+        if (tableKeys.length == 0) return -1;
+        int key = key(constellation, svid);
+        int mask = tableKeys.length - 1;
+        int slot = (key * 0x9E3779B9) >>> 16 & mask;
+        while (tableValues[slot] != -1) {
+            if (tableKeys[slot] == key) return tableValues[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public void update(GnssStatus status) {
+        count = 0;
+        usedCount = 0;
+        if (status == null) {
+            Arrays.fill(tableValues, -1);
+            return;
+        }
+
+        int signals = status.getSatelliteCount();
+        ensureCapacity(signals);
+        boolean hasCarrier = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
+
+        for (int i = 0; i < signals; i++) {
+            int constellation = status.getConstellationType(i);
+            int svid = status.getSvid(i);
+            float frequency = hasCarrier && status.hasCarrierFrequencyHz(i) ? status.getCarrierFrequencyHz(i) : 0f;
+            float cn0 = status.getCn0DbHz(i);
+            boolean used = status.usedInFix(i);
+
+            int index = findOrInsert(key(constellation, svid));
+            Satellite sat = satellites[index];
+            if (sat.bandCount == -1) {
+                sat.constellation = constellation;
+                sat.svid = svid;
+                sat.azimuthDegrees = status.getAzimuthDegrees(i);
+                sat.elevationDegrees = status.getElevationDegrees(i);
+                sat.usedInFix = false;
+                sat.maxCn0DbHz = cn0;
+                sat.bandCount = 0;
+            }
+
+            if (sat.bandCount < MAX_BANDS) {
+                int b = sat.bandCount++;
+                sat.bandFrequencyHz[b] = frequency;
+                sat.bandCn0DbHz[b] = cn0;
+                sat.bandUsedInFix[b] = used;
+            }
+            if (cn0 > sat.maxCn0DbHz) sat.maxCn0DbHz = cn0;
+            if (used && !sat.usedInFix) {
+                sat.usedInFix = true;
+                usedCount++;
+            }
+        }
+    }
+
+    private static int key(int constellation, int svid) { return (constellation << 16) | (svid & 0xFFFF); }
+
+    /** Retorna o índice do registro da chave, criando um novo (com bandCount = -1) se preciso. */
+    private int findOrInsert(int key) {
+        int mask = tableKeys.length - 1;
+        int slot = (key * 0x9E3779B9) >>> 16 & mask;
+        while (tableValues[slot] != -1) {
+            if (tableKeys[slot] == key) return tableValues[slot];
+            slot = (slot + 1) & mask;
+        }
+        int index = count++;
+        tableKeys[slot] = key;
+        tableValues[slot] = index;
+        satellites[index].bandCount = -1;
+        return index;
+    }
+
+    private void ensureCapacity(int signals) {
+        if (satellites.length < signals) {
+            int old = satellites.length;
+            satellites = Arrays.copyOf(satellites, signals);
+            for (int i = old; i < signals; i++) satellites[i] = new Satellite();
+        }
+        int tableSize = 16;
+        while (tableSize < signals * 2) tableSize <<= 1;
+        if (tableKeys.length != tableSize) {
+            tableKeys = new int[tableSize];
+            tableValues = new int[tableSize];
+        }
+        Arrays.fill(tableValues, -1);
+    }
+
+    /** Nome da banda a partir da constelação e da frequência da portadora (Hz). */
+    public static String bandName(int constellation, float frequencyHz) {
+        if (frequencyHz <= 0) return "?";
+        double mhz = frequencyHz / 1e6;
+        if (constellation == GnssStatus.CONSTELLATION_GLONASS) {
+            if (mhz > 1590) return "G1";
+            if (mhz > 1240) return "G2";
+        }
+        if (near(mhz, 1575.42)) {
+            switch (constellation) {
+                case GnssStatus.CONSTELLATION_GALILEO: return "E1";
+                case GnssStatus.CONSTELLATION_BEIDOU: return "B1C";
+                default: return "L1";
+            }
+        }
+        if (near(mhz, 1561.098)) return "B1I";
+        if (near(mhz, 1176.45)) {
+            switch (constellation) {
+                case GnssStatus.CONSTELLATION_GALILEO: return "E5a";
+                case GnssStatus.CONSTELLATION_BEIDOU: return "B2a";
+                default: return "L5";
+            }
+        }
+        if (near(mhz, 1207.14)) return constellation == GnssStatus.CONSTELLATION_GALILEO ? "E5b" : "B2I";
+        if (near(mhz, 1227.60)) return "L2";
+        if (near(mhz, 1268.52)) return "B3I";
+        if (near(mhz, 1278.75)) return "E6";
+        return Math.round(mhz) + " MHz";
+    }
+
+    private static boolean near(double mhz, double reference) { return Math.abs(mhz - reference) < 1.0; }
+}
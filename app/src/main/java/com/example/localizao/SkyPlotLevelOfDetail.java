@@ -0,0 +1,172 @@
+package com.example.localizao;
+
+import java.util.Arrays;
+
+/**
+ * Passo de nível de detalhe do gráfico do céu, executado uma vez por status. Marcadores que se
+ * sobrepõem são agrupados em um único marcador com contador, e cada rótulo é posicionado em um
+ * lugar livre ao redor do marcador (direita, esquerda, acima, abaixo) ou omitido.
+ * <p>
+ * Os grupos ficam a pelo menos {@code clusterRadius} uns dos outros, então o número de marcadores
+ * e rótulos desenhados é limitado pela área da tela, não pelo número de sinais rastreados.
+ */
+public class SkyPlotLevelOfDetail {
+    private final float clusterRadius;
+    private final float markerHalfSize;
+    private final float labelHeight;
+    private final float labelGap;
+
+    private final SpatialGrid clusterGrid = new SpatialGrid();
+    private final SpatialGrid obstacleGrid = new SpatialGrid();
+    private final int[] candidates = new int[256];
+
+    // Ordem de prioridade dos itens (usados no fix e maior C/N0 primeiro)
+    private int[] order = new int[0];
+
+    // Resultado: um grupo por marcador desenhado
+    private int clusterCount = 0;
+    private int[] clusterItem = new int[0];   // Item representante (o de maior prioridade)
+    private int[] clusterSize = new int[0];
+    private int[] itemCluster = new int[0];   // Grupo de cada item
+    private boolean[] labelVisible = new boolean[0];
+    private float[] labelX = new float[0];    // Início do texto
+    private float[] labelY = new float[0];    // Linha de base do texto
+
+    // Retângulos ocupados (marcadores e rótulos já posicionados)
+    private int obstacleCount = 0;
+    private float[] obstacleLeft = new float[0], obstacleTop = new float[0];
+    private float[] obstacleRight = new float[0], obstacleBottom = new float[0];
+    private float maxObstacleHalfSize = 0;
+
+    public SkyPlotLevelOfDetail(float clusterRadius, float markerHalfSize, float labelHeight, float labelGap) {
+        this.clusterRadius = clusterRadius;
+        this.markerHalfSize = markerHalfSize;
+        this.labelHeight = labelHeight;
+        this.labelGap = labelGap;
+    }
+
+    /**
+     * @param n número de itens
+     * @param xs, ys centros projetados
+     * @param priority prioridade de cada item (maior é desenhado por cima e ganha o rótulo)
+     * @param labelWidths largura do rótulo de cada item, em pixels
+     */
+    public void compute(int n, float[] xs, float[] ys, float[] priority, float[] labelWidths, int width, int height) {
+        ensureCapacity(n);
+        sortByPriority(n, priority);
+
+        // --- 1. Agrupamento guloso: cada item entra no grupo mais próximo dentro do raio ---
+        clusterCount = 0;
+        clusterGrid.reset(width, height, clusterRadius, n);
+        for (int k = 0; k < n; k++) {
+            int item = order[k];
+            int c = clusterGrid.nearest(xs[item], ys[item], clusterRadius);
+            if (c >= 0) {
+                clusterSize[c]++;
+            } else {
+                c = clusterCount++;
+                clusterItem[c] = item;
+                clusterSize[c] = 1;
+                clusterGrid.insert(c, xs[item], ys[item]);
+            }
+            itemCluster[item] = c;
+        }
+
+        // --- 2. Marcadores (com o contador) ocupam espaço antes de qualquer rótulo ---
+        obstacleCount = 0;
+        maxObstacleHalfSize = markerHalfSize * 1.5f;
+        obstacleGrid.reset(width, height, clusterRadius * 2, clusterCount * 2);
+        for (int c = 0; c < clusterCount; c++) {
+            int item = clusterItem[c];
+            float top = ys[item] - markerHalfSize - (clusterSize[c] > 1 ? markerHalfSize / 2 : 0);
+            float right = xs[item] + markerHalfSize + (clusterSize[c] > 1 ? markerHalfSize / 2 : 0);
+            addObstacle(xs[item] - markerHalfSize, top, right, ys[item] + markerHalfSize);
+        }
+
+        // --- 3. Rótulos: primeira posição livre; se nenhuma couber, o rótulo é omitido ---
+        for (int c = 0; c < clusterCount; c++) {
+            int item = clusterItem[c];
+            float x = xs[item], y = ys[item];
+            float w = labelWidths[item];
+            float offset = markerHalfSize + labelGap;
+            labelVisible[c] = false;
+            for (int position = 0; position < 4 && !labelVisible[c]; position++) {
+                float left, top;
+                switch (position) {
+                    case 0: left = x + offset; top = y - labelHeight / 2; break;      // Direita
+                    case 1: left = x - offset - w; top = y - labelHeight / 2; break;  // Esquerda
+                    case 2: left = x - w / 2; top = y - offset - labelHeight; break;  // Acima
+                    default: left = x - w / 2; top = y + offset; break;               // Abaixo
+                }
+                if (left < 0 || top < 0 || left + w > width || top + labelHeight > height) continue;
+                if (collides(left, top, left + w, top + labelHeight)) continue;
+                addObstacle(left, top, left + w, top + labelHeight);
+                labelVisible[c] = true;
+                labelX[c] = left;
+                labelY[c] = top + labelHeight * 0.8f;
+            }
+        }
+    }
+
+    public int getClusterCount() { return clusterCount; }
+    public int getClusterItem(int c) { return clusterItem[c]; }
+    public int getClusterSize(int c) { return clusterSize[c]; }
+    public int getItemCluster(int item) { return itemCluster[item]; }
+    public boolean isLabelVisible(int c) { return labelVisible[c]; }
+    public float getLabelX(int c) { return labelX[c]; }
+    public float getLabelY(int c) { return labelY[c]; }
+
+    private boolean collides(float left, float top, float right, float bottom) {
+        float cx = (left + right) / 2, cy = (top + bottom) / 2;
+        float radius = Math.max(right - left, bottom - top) / 2 + maxObstacleHalfSize;
+        int n = obstacleGrid.collect(cx, cy, radius, candidates);
+        for (int k = 0; k < n; k++) {
+            int o = candidates[k];
+            if (left < obstacleRight[o] && right > obstacleLeft[o] && top < obstacleBottom[o] && bottom > obstacleTop[o])
+                return true;
+        }
+        return false;
+    }
+
+    private void addObstacle(float left, float top, float right, float bottom) {
+        int o = obstacleCount++;
+        if (o >= obstacleLeft.length) {
+            int capacity = Math.max(16, obstacleLeft.length * 2);
+            obstacleLeft = Arrays.copyOf(obstacleLeft, capacity);
+            obstacleTop = Arrays.copyOf(obstacleTop, capacity);
+            obstacleRight = Arrays.copyOf(obstacleRight, capacity);
+            obstacleBottom = Arrays.copyOf(obstacleBottom, capacity);
+        }
+        obstacleLeft[o] = left;
+        obstacleTop[o] = top;
+        obstacleRight[o] = right;
+        obstacleBottom[o] = bottom;
+        maxObstacleHalfSize = Math.max(maxObstacleHalfSize, Math.max(right - left, bottom - top) / 2);
+        obstacleGrid.insert(o, (left + right) / 2, (top + bottom) / 2);
+    }
+
+    /** Ordenação por inserção (poucas centenas de itens, sem alocação). */
+    private void sortByPriority(int n, float[] priority) {
+        for (int i = 0; i < n; i++) order[i] = i;
+        for (int i = 1; i < n; i++) {
+            int item = order[i];
+            int j = i - 1;
+            while (j >= 0 && priority[order[j]] < priority[item]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = item;
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (order.length >= n) return;
+        order = new int[n];
+        clusterItem = new int[n];
+        clusterSize = new int[n];
+        itemCluster = new int[n];
+        labelVisible = new boolean[n];
+        labelX = new float[n];
+        labelY = new float[n];
+    }
+}
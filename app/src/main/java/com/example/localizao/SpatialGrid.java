@@ -0,0 +1,103 @@
+package com.example.localizao;
+
+import java.util.Arrays;
+
+/**
+ * Índice espacial de grade uniforme sobre pontos em coordenadas de tela. Cada célula guarda uma
+ * lista encadeada (em vetores) dos itens que caem nela, então inserir é O(1) e uma consulta só
+ * visita as células ao redor do ponto pedido.
+ * <p>
+ * Os vetores são reaproveitados entre reconstruções; só crescem quando necessário.
+ */
+public class SpatialGrid {
+    private float cellSize = 1;
+    private int cols, rows;
+    private int[] cellHead = new int[0];
+
+    private int count = 0;
+    private int[] next = new int[0];
+    private int[] ids = new int[0];
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+
+    /** Limpa o índice e o dimensiona para uma área {@code width} x {@code height}. */
+    public void reset(int width, int height, float cellSize, int expectedItems) {
+        this.cellSize = cellSize;
+        cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        int cells = cols * rows;
+        if (cellHead.length < cells) cellHead = new int[cells];
+        Arrays.fill(cellHead, 0, cells, -1);
+        ensureCapacity(expectedItems);
+        count = 0;
+    }
+
+    private void ensureCapacity(int n) {
+        if (next.length >= n) return;
+        int capacity = Math.max(n, next.length * 2);
+        next = Arrays.copyOf(next, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+    }
+
+    public int size() { return count; }
+
+    /** Insere o item {@code id} na posição (x, y); pontos fora da área vão para a borda. */
+    public void insert(int id, float x, float y) {
+        ensureCapacity(count + 1);
+        int cell = cellOf(x, y);
+        ids[count] = id;
+        xs[count] = x;
+        ys[count] = y;
+        next[count] = cellHead[cell];
+        cellHead[cell] = count;
+        count++;
+    }
+
+    /**
+     * Retorna o id do item mais próximo de (x, y) dentro de {@code radius}, ou -1 se não houver.
+     */
+    public int nearest(float x, float y, float radius) {
+        int c0 = clampCol(x - radius), c1 = clampCol(x + radius);
+        int r0 = clampRow(y - radius), r1 = clampRow(y + radius);
+        float best = radius * radius;
+        int bestId = -1;
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                for (int i = cellHead[row * cols + col]; i != -1; i = next[i]) {
+                    float dx = xs[i] - x, dy = ys[i] - y;
+                    float d = dx * dx + dy * dy;
+                    if (d <= best) { best = d; bestId = ids[i]; }
+                }
+            }
+        }
+        return bestId;
+    }
+
+    /**
+     * Copia para {@code out} os ids de todos os itens nas células que cobrem o quadrado de lado
+     * {@code 2 * radius} centrado em (x, y). São candidatos: quem chama faz o teste exato.
+     *
+     * @return quantidade de ids copiados (limitada ao tamanho de {@code out})
+     */
+    public int collect(float x, float y, float radius, int[] out) {
+        int c0 = clampCol(x - radius), c1 = clampCol(x + radius);
+        int r0 = clampRow(y - radius), r1 = clampRow(y + radius);
+        int n = 0;
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                for (int i = cellHead[row * cols + col]; i != -1 && n < out.length; i = next[i]) {
+                    out[n++] = ids[i];
+                }
+            }
+        }
+        return n;
+    }
+
+    private int cellOf(float x, float y) { return clampRow(y) * cols + clampCol(x); }
+
+    private int clampCol(float x) { return Math.min(cols - 1, Math.max(0, (int) (x / cellSize))); }
+
+    private int clampRow(float y) { return Math.min(rows - 1, Math.max(0, (int) (y / cellSize))); }
+}
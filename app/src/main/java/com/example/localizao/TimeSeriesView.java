@@ -0,0 +1,188 @@
+package com.example.localizao;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.location.Location;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Componente customizado que desenha a série temporal de toda a sessão de precisão, altitude e
+ * velocidade. Cada grandeza é resumida por um {@link MinMaxSeries}, então o custo de desenho é
+ * o mesmo com 10 minutos ou 10 horas de dados. As três séries compartilham o eixo de tempo
+ * (origem no primeiro fix), então a mesma posição x corresponde ao mesmo instante em todas.
+ */
+public class TimeSeriesView extends View {
+    // Número de intervalos mantidos por série (limita pontos desenhados e memória)
+    private static final int BUCKETS = 360;
+    private static final long INITIAL_BUCKET_MS = 1000;
+
+    private static final int SERIES_ACCURACY = 0;
+    private static final int SERIES_ALTITUDE = 1;
+    private static final int SERIES_SPEED = 2;
+
+    private static final String[] SERIES_LABELS = { "Precisão (m)", "Altitude (m)", "Velocidade (m/s)" };
+    private static final int[] SERIES_COLORS = {
+            Color.parseColor("#FF5722"), // Laranja
+            Color.parseColor("#03A9F4"), // Azul
+            Color.parseColor("#4CAF50")  // Verde
+    };
+
+    private final MinMaxSeries[] series = new MinMaxSeries[SERIES_LABELS.length];
+
+    // Buffer reaproveitado para drawLines: 2 segmentos (barra min/max + ligação) por intervalo
+    private final float[] lines = new float[BUCKETS * 8];
+
+    private final Paint linePaint = new Paint();
+    private final Paint textPaint = new Paint();
+    private final Paint axisPaint = new Paint();
+
+    private int width, height;
+    private long lastMs = -1; // Instante do fix mais recente (fim do eixo de tempo)
+
+    public TimeSeriesView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+
+        for (int i = 0; i < series.length; i++)
+            series[i] = new MinMaxSeries(BUCKETS, INITIAL_BUCKET_MS);
+
+        linePaint.setAntiAlias(true);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(3);
+
+        textPaint.setAntiAlias(true);
+        textPaint.setTextSize(28);
+
+        axisPaint.setStyle(Paint.Style.STROKE);
+        axisPaint.setStrokeWidth(2);
+        axisPaint.setColor(Color.GRAY);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        width = w;
+        height = h;
+    }
+
+    // --- Métodos de Atualização de Dados (Chamados pela Activity) ---
+    public void newLocation(Location location) {
+        if (location == null) return;
+        long timeMs = location.getElapsedRealtimeNanos() / 1_000_000L;
+        // Todas as séries avançam juntas, mesmo sem amostra, para manter origem e intervalo comuns
+        for (MinMaxSeries s : series) s.advanceTo(timeMs);
+        lastMs = Math.max(lastMs, timeMs);
+        if (location.hasAccuracy()) series[SERIES_ACCURACY].add(timeMs, location.getAccuracy());
+        if (location.hasAltitude()) series[SERIES_ALTITUDE].add(timeMs, (float) location.getAltitude());
+        if (location.hasSpeed()) series[SERIES_SPEED].add(timeMs, location.getSpeed());
+        invalidate();
+    }
+
+    public void clear() {
+        for (MinMaxSeries s : series) s.clear();
+        lastMs = -1;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        final float padding = 10;
+        final float legendHeight = 36 * series.length;
+        float left = padding;
+        float right = width - padding;
+        float top = padding + legendHeight;
+        float bottom = height - padding;
+        if (right <= left || bottom <= top) return;
+
+        canvas.drawRect(left, top, right, bottom, axisPaint);
+
+        // --- Legenda (valor atual e faixa da sessão) ---
+        textPaint.setTextAlign(Paint.Align.LEFT);
+        for (int s = 0; s < series.length; s++) {
+            MinMaxSeries data = series[s];
+            textPaint.setColor(SERIES_COLORS[s]);
+            String text = SERIES_LABELS[s] + ": ";
+            if (data.isEmpty()) {
+                text += "-";
+            } else {
+                text += round(data.getLatest()) + " [" + round(data.getOverallMin()) + " – " + round(data.getOverallMax()) + "]";
+            }
+            canvas.drawText(text, left, padding + 28 + 36 * s, textPaint);
+        }
+
+        // --- Duração da sessão (origem comum a todas as séries) ---
+        long startMs = series[0].getStartMs();
+        long durationMs = startMs < 0 ? 0 : lastMs - startMs;
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextAlign(Paint.Align.RIGHT);
+        canvas.drawText("Sessão: " + formatDuration(durationMs), right, padding + 28, textPaint);
+
+        // --- Séries (cada uma normalizada na própria faixa, no eixo de tempo comum) ---
+        long spanMs = durationMs + series[0].getBucketMs();
+        for (int s = 0; s < series.length; s++) {
+            drawSeries(canvas, series[s], SERIES_COLORS[s], spanMs, left, top, right, bottom);
+        }
+    }
+
+    /**
+     * Desenha uma série: para cada intervalo, uma barra vertical do mínimo ao máximo e a ligação
+     * do último valor do intervalo anterior ao primeiro valor do atual. O x vem do instante central
+     * do intervalo, em {@code spanMs} a partir da origem comum.
+     */
+    private void drawSeries(Canvas canvas, MinMaxSeries data, int color, long spanMs, float left, float top, float right, float bottom) {
+        int size = data.size();
+        if (size == 0) return;
+
+        float lo = data.getOverallMin();
+        float hi = data.getOverallMax();
+        if (hi - lo < 1e-3f) { lo -= 1; hi += 1; }
+        float scaleY = (bottom - top) / (hi - lo);
+        float stepX = (right - left) * data.getBucketMs() / spanMs;
+
+        int n = 0;
+        boolean hasPrevious = false;
+        float prevX = 0, prevY = 0;
+        for (int i = 0; i < size; i++) {
+            if (!data.hasData(i)) continue;
+            float x = left + (i + 0.5f) * stepX;
+            float yMin = bottom - (data.getMin(i) - lo) * scaleY;
+            float yMax = bottom - (data.getMax(i) - lo) * scaleY;
+
+            if (hasPrevious) {
+                lines[n++] = prevX;
+                lines[n++] = prevY;
+                lines[n++] = x;
+                lines[n++] = bottom - (data.getFirst(i) - lo) * scaleY;
+            }
+            lines[n++] = x;
+            lines[n++] = yMin;
+            lines[n++] = x;
+            lines[n++] = yMax;
+
+            prevX = x;
+            prevY = bottom - (data.getLast(i) - lo) * scaleY;
+            hasPrevious = true;
+        }
+
+        linePaint.setColor(color);
+        canvas.drawLines(lines, 0, n, linePaint);
+    }
+
+    private static float round(float v) { return Math.round(v * 10) / 10f; }
+
+    private static String formatDuration(long ms) {
+        long totalSeconds = ms / 1000;
+        long h = totalSeconds / 3600;
+        long min = (totalSeconds % 3600) / 60;
+        long s = totalSeconds % 60;
+        if (h > 0) return h + "h " + min + "min";
+        if (min > 0) return min + "min " + s + "s";
+        return s + "s";
+    }
+}
@@ -0,0 +1,17 @@
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
+
+// Fontes com comentários e textos em português (não ASCII)
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
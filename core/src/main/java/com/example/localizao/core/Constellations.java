@@ -0,0 +1,34 @@
+package com.example.localizao.core;
+
+/**
+ * Tipos de constelação com os mesmos valores de {@code android.location.GnssStatus.CONSTELLATION_*},
+ * para uso fora do Android (ex.: o analisador de sessões).
+ */
+public final class Constellations {
+    public static final int UNKNOWN = 0;
+    public static final int GPS = 1;
+    public static final int SBAS = 2;
+    public static final int GLONASS = 3;
+    public static final int QZSS = 4;
+    public static final int BEIDOU = 5;
+    public static final int GALILEO = 6;
+    public static final int IRNSS = 7;
+
+    /** Número de tipos (os valores vão de 0 a COUNT - 1). */
+    public static final int COUNT = 8;
+
+    private Constellations() { }
+
+    public static String name(int constellation) {
+        switch (constellation) {
+            case GPS: return "GPS";
+            case GLONASS: return "GLONASS";
+            case GALILEO: return "GALILEO";
+            case BEIDOU: return "BEIDOU";
+            case QZSS: return "QZSS";
+            case SBAS: return "SBAS";
+            case IRNSS: return "IRNSS";
+            default: return "Desconhecida";
+        }
+    }
+}
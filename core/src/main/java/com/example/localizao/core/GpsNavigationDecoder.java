@@ -0,0 +1,148 @@
+package com.example.localizao.core;
+
+/**
+ * Decodifica os subquadros da mensagem de navegação GPS L1 C/A (LNAV) em órbitas: efeméride
+ * (subquadros 1-3, precisa) e almanaque (subquadros 4 e 5, de todos os satélites).
+ * <p>
+ * Cada subquadro tem 10 palavras de 30 bits, uma por grupo de 4 bytes (bits 29..0, MSB primeiro),
+ * como em {@code GnssNavigationMessage.getData()}. Os 6 bits de paridade não são verificados
+ * (o Android já informa o status da paridade), mas a inversão indicada pelo D30 da palavra
+ * anterior é desfeita.
+ */
+public class GpsNavigationDecoder {
+    public static final int MAX_PRN = 32;
+    private static final int WORDS = 10;
+    // Uma efeméride vale ~4 h em torno do toe; fora disso usa o almanaque
+    static final double EPHEMERIS_VALIDITY_S = 4 * 3600;
+
+    // Subquadros 1-3 recebidos por PRN, até que os três tenham o mesmo IODE
+    private final int[][][] pending = new int[MAX_PRN + 1][4][];
+    private final GpsOrbit[] ephemeris = new GpsOrbit[MAX_PRN + 1];
+    private final GpsOrbit[] almanac = new GpsOrbit[MAX_PRN + 1];
+    private int version = 0;
+
+    /** Incrementada a cada órbita nova; permite às caches detectar mudanças. */
+    public int getVersion() { return version; }
+
+    /**
+     * Melhor órbita do PRN para o tempo da semana {@code tow}: a efeméride, se estiver dentro da
+     * validade ({@link #EPHEMERIS_VALIDITY_S} do toe), senão o almanaque; null se nenhuma servir.
+     */
+    public GpsOrbit getOrbit(int prn, double tow) {
+        if (prn < 1 || prn > MAX_PRN) return null;
+        GpsOrbit eph = ephemeris[prn];
+        if (eph != null && Math.abs(eph.timeFromEpoch(tow)) <= EPHEMERIS_VALIDITY_S) return eph;
+        return almanac[prn];
+    }
+
+    /**
+     * Processa um subquadro do satélite {@code svid}. Retorna true se alguma órbita mudou.
+     */
+    public boolean onSubframe(int svid, byte[] data) {
+        if (svid < 1 || svid > MAX_PRN || data == null || data.length < WORDS * 4) return false;
+        int[] words = dataWords(data);
+
+        int subframe = bits(words, 2, 20, 3);
+        switch (subframe) {
+            case 1:
+            case 2:
+            case 3:
+                pending[svid][subframe] = words;
+                return tryEphemeris(svid);
+            case 4:
+            case 5:
+                return tryAlmanac(words);
+            default:
+                return false;
+        }
+    }
+
+    /** Extrai os 24 bits de dados de cada palavra, desfazendo a inversão pelo D30* anterior. */
+    private static int[] dataWords(byte[] data) {
+        int[] words = new int[WORDS];
+        int previous = 0;
+        for (int w = 0; w < WORDS; w++) {
+            int word = ((data[4 * w] & 0xFF) << 24) | ((data[4 * w + 1] & 0xFF) << 16)
+                    | ((data[4 * w + 2] & 0xFF) << 8) | (data[4 * w + 3] & 0xFF);
+            int d = (word >>> 6) & 0xFFFFFF;
+            if ((previous & 1) != 0) d ^= 0xFFFFFF;
+            words[w] = d;
+            previous = word;
+        }
+        return words;
+    }
+
+    /** Campo sem sinal da palavra {@code word} (1-10), bits {@code first}..(first+length-1), de 1 a 24. */
+    private static int bits(int[] words, int word, int first, int length) {
+        return (words[word - 1] >>> (24 - first - length + 1)) & ((1 << length) - 1);
+    }
+
+    /** Campo de 32 bits: 8 bits finais da palavra {@code word} seguidos dos 24 da seguinte. */
+    private static long split32(int[] words, int word) {
+        return ((long) bits(words, word, 17, 8) << 24) | words[word];
+    }
+
+    private static int signed(long value, int length) {
+        return (int) (value << (64 - length) >> (64 - length));
+    }
+
+    private boolean tryEphemeris(int svid) {
+        int[] sf1 = pending[svid][1], sf2 = pending[svid][2], sf3 = pending[svid][3];
+        if (sf1 == null || sf2 == null || sf3 == null) return false;
+
+        int iodc = (bits(sf1, 3, 23, 2) << 8) | bits(sf1, 8, 1, 8);
+        int iode2 = bits(sf2, 3, 1, 8);
+        int iode3 = bits(sf3, 10, 1, 8);
+        if ((iodc & 0xFF) != iode2 || iode2 != iode3) return false; // Conjunto ainda misturado
+        if (ephemeris[svid] != null && ephemeris[svid].issue == iode2) return false;
+
+        boolean healthy = bits(sf1, 3, 17, 6) == 0;
+        GpsOrbit o = new GpsOrbit(svid, false, healthy, iode2);
+        o.crs = signed(bits(sf2, 3, 9, 16), 16) * 0x1p-5;
+        o.deltaN = GpsOrbit.semicircles(signed(bits(sf2, 4, 1, 16), 16) * 0x1p-43);
+        o.m0 = GpsOrbit.semicircles(signed(split32(sf2, 4), 32) * 0x1p-31);
+        o.cuc = signed(bits(sf2, 6, 1, 16), 16) * 0x1p-29;
+        o.e = split32(sf2, 6) * 0x1p-33;
+        o.cus = signed(bits(sf2, 8, 1, 16), 16) * 0x1p-29;
+        o.sqrtA = split32(sf2, 8) * 0x1p-19;
+        o.toe = bits(sf2, 10, 1, 16) * 16.0;
+
+        o.cic = signed(bits(sf3, 3, 1, 16), 16) * 0x1p-29;
+        o.omega0 = GpsOrbit.semicircles(signed(split32(sf3, 3), 32) * 0x1p-31);
+        o.cis = signed(bits(sf3, 5, 1, 16), 16) * 0x1p-29;
+        o.i0 = GpsOrbit.semicircles(signed(split32(sf3, 5), 32) * 0x1p-31);
+        o.crc = signed(bits(sf3, 7, 1, 16), 16) * 0x1p-5;
+        o.omega = GpsOrbit.semicircles(signed(split32(sf3, 7), 32) * 0x1p-31);
+        o.omegaDot = GpsOrbit.semicircles(signed(sf3[8], 24) * 0x1p-43);
+        o.iDot = GpsOrbit.semicircles(signed(bits(sf3, 10, 9, 14), 14) * 0x1p-43);
+
+        ephemeris[svid] = o;
+        version++;
+        return true;
+    }
+
+    private boolean tryAlmanac(int[] words) {
+        // Páginas de almanaque: ID de dados 01 e SV ID 1-32 (as demais páginas têm outros IDs)
+        int dataId = bits(words, 3, 1, 2);
+        int prn = bits(words, 3, 3, 6);
+        if (dataId != 1 || prn < 1 || prn > MAX_PRN) return false;
+
+        int toa = bits(words, 4, 1, 8);
+        if (almanac[prn] != null && almanac[prn].issue == toa) return false;
+
+        boolean healthy = bits(words, 5, 17, 8) == 0;
+        GpsOrbit o = new GpsOrbit(prn, true, healthy, toa);
+        o.e = bits(words, 3, 9, 16) * 0x1p-21;
+        o.toe = toa * 4096.0;
+        o.i0 = GpsOrbit.semicircles(0.30 + signed(bits(words, 4, 9, 16), 16) * 0x1p-19);
+        o.omegaDot = GpsOrbit.semicircles(signed(bits(words, 5, 1, 16), 16) * 0x1p-38);
+        o.sqrtA = words[5] * 0x1p-11;
+        o.omega0 = GpsOrbit.semicircles(signed(words[6], 24) * 0x1p-23);
+        o.omega = GpsOrbit.semicircles(signed(words[7], 24) * 0x1p-23);
+        o.m0 = GpsOrbit.semicircles(signed(words[8], 24) * 0x1p-23);
+
+        almanac[prn] = o;
+        version++;
+        return true;
+    }
+}
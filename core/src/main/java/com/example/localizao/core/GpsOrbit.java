@@ -0,0 +1,90 @@
+package com.example.localizao.core;
+
+/**
+ * Elementos orbitais keplerianos de um satélite GPS, vindos da efeméride (subquadros 1-3) ou do
+ * almanaque (subquadros 4 e 5) da mensagem de navegação L1 C/A. O almanaque usa as mesmas
+ * equações, com as correções harmônicas e as taxas Δn/IDOT iguais a zero.
+ */
+public final class GpsOrbit {
+    // Constantes do IS-GPS-200 (tabela 20-IV)
+    private static final double MU = 3.986005e14;                 // m³/s²
+    private static final double EARTH_ROTATION = 7.2921151467e-5; // rad/s
+    private static final double GPS_PI = 3.1415926535898;
+    private static final double HALF_WEEK = 302400;
+
+    // Época GPS (06/01/1980) em ms Unix e segundos intercalares GPS - UTC
+    private static final long GPS_EPOCH_UTC_MS = 315964800000L;
+    private static final int LEAP_SECONDS = 18;
+    private static final long WEEK_MS = 604800000L;
+
+    public final int svid;
+    public final boolean fromAlmanac;
+    public final boolean healthy;
+    /** IODE da efeméride ou toa do almanaque; muda quando chega um conjunto novo. */
+    final int issue;
+
+    // Elementos (ângulos em radianos, tempos em segundos da semana GPS)
+    double toe, sqrtA, e, i0, omega0, omega, m0;
+    double deltaN, omegaDot, iDot;
+    double cuc, cus, crc, crs, cic, cis;
+
+    GpsOrbit(int svid, boolean fromAlmanac, boolean healthy, int issue) {
+        this.svid = svid;
+        this.fromAlmanac = fromAlmanac;
+        this.healthy = healthy;
+        this.issue = issue;
+    }
+
+    /** Converte semicírculos (unidade da mensagem de navegação) em radianos. */
+    static double semicircles(double value) { return value * GPS_PI; }
+
+    /** Segundos da semana GPS correspondentes a um instante UTC em ms. */
+    public static double timeOfWeek(long utcMillis) {
+        long gpsMillis = utcMillis - GPS_EPOCH_UTC_MS + LEAP_SECONDS * 1000L;
+        return Math.floorMod(gpsMillis, WEEK_MS) / 1000.0;
+    }
+
+    /** Tempo (s) de {@code tow} até a época da órbita, ajustado à virada da semana. */
+    double timeFromEpoch(double tow) {
+        double tk = tow - toe;
+        if (tk > HALF_WEEK) tk -= 2 * HALF_WEEK;
+        else if (tk < -HALF_WEEK) tk += 2 * HALF_WEEK;
+        return tk;
+    }
+
+    /**
+     * Posição ECEF (WGS 84, metros) em {@code out[0..2]} no tempo da semana {@code tow}.
+     */
+    public void position(double tow, double[] out) {
+        double a = sqrtA * sqrtA;
+        double tk = timeFromEpoch(tow);
+
+        // Anomalia média e equação de Kepler (Newton; converge em poucas iterações para e < 0,03)
+        double n = Math.sqrt(MU / (a * a * a)) + deltaN;
+        double mk = m0 + n * tk;
+        double ek = mk;
+        for (int i = 0; i < 10; i++) {
+            double delta = (ek - e * Math.sin(ek) - mk) / (1 - e * Math.cos(ek));
+            ek -= delta;
+            if (Math.abs(delta) < 1e-12) break;
+        }
+
+        double sinE = Math.sin(ek), cosE = Math.cos(ek);
+        double vk = Math.atan2(Math.sqrt(1 - e * e) * sinE, cosE - e);
+        double phi = vk + omega;
+        double sin2phi = Math.sin(2 * phi), cos2phi = Math.cos(2 * phi);
+
+        double uk = phi + cus * sin2phi + cuc * cos2phi;
+        double rk = a * (1 - e * cosE) + crs * sin2phi + crc * cos2phi;
+        double ik = i0 + iDot * tk + cis * sin2phi + cic * cos2phi;
+
+        double xp = rk * Math.cos(uk);
+        double yp = rk * Math.sin(uk);
+        double omegaK = omega0 + (omegaDot - EARTH_ROTATION) * tk - EARTH_ROTATION * toe;
+        double sinO = Math.sin(omegaK), cosO = Math.cos(omegaK), cosI = Math.cos(ik);
+
+        out[0] = xp * cosO - yp * cosI * sinO;
+        out[1] = xp * sinO + yp * cosI * cosO;
+        out[2] = yp * Math.sin(ik);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.localizao.core;
+
+/**
+ * Filtros de constelação e de uso no fix aplicados ao gráfico do céu. GPS, GLONASS, Galileo e
+ * BeiDou podem ser ocultados individualmente; QZSS, SBAS e desconhecidas sempre passam.
+ */
+public class SatelliteFilter {
+    private boolean showGPS = true;
+    private boolean showGLONASS = true;
+    private boolean showGALILEO = true;
+    private boolean showBEIDOU = true;
+    private boolean showUnused = true;
+
+    public void set(boolean gps, boolean glonass, boolean galileo, boolean beidou, boolean unused) {
+        showGPS = gps;
+        showGLONASS = glonass;
+        showGALILEO = galileo;
+        showBEIDOU = beidou;
+        showUnused = unused;
+    }
+
+    public boolean isShowGPS() { return showGPS; }
+    public boolean isShowGLONASS() { return showGLONASS; }
+    public boolean isShowGALILEO() { return showGALILEO; }
+    public boolean isShowBEIDOU() { return showBEIDOU; }
+    public boolean isShowUnused() { return showUnused; }
+
+    public boolean accepts(int constellation, boolean usedInFix) {
+        boolean passesConstellationFilter = (constellation == Constellations.GPS && showGPS) ||
+                (constellation == Constellations.GLONASS && showGLONASS) ||
+                (constellation == Constellations.GALILEO && showGALILEO) ||
+                (constellation == Constellations.BEIDOU && showBEIDOU) ||
+                (constellation == Constellations.QZSS || constellation == Constellations.SBAS || constellation == Constellations.UNKNOWN);
+
+        boolean passesUsedFilter = showUnused || usedInFix;
+
+        return passesConstellationFilter && passesUsedFilter;
+    }
+}
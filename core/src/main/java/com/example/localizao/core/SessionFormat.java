@@ -0,0 +1,39 @@
+package com.example.localizao.core;
+
+/**
+ * Formato dos arquivos de sessão gravados pelo app e lidos pelo analisador. Texto UTF-8, um
+ * registro por linha, campos separados por vírgula; campos ausentes ficam vazios.
+ * <pre>
+ * # localizacao-session v1
+ * L,elapsedRealtimeMs,utcMs,latitude,longitude,altitude,accuracy,speed,bearing
+ * S,elapsedRealtimeMs,constellation,svid,azimuth,elevation,cn0DbHz,usedInFix
+ * </pre>
+ */
+public final class SessionFormat {
+    public static final String HEADER = "# localizacao-session v1";
+    public static final char COMMENT = '#';
+    public static final char SEPARATOR = ',';
+
+    public static final char LOCATION = 'L';
+    public static final int L_ELAPSED_MS = 1;
+    public static final int L_UTC_MS = 2;
+    public static final int L_LATITUDE = 3;
+    public static final int L_LONGITUDE = 4;
+    public static final int L_ALTITUDE = 5;
+    public static final int L_ACCURACY = 6;
+    public static final int L_SPEED = 7;
+    public static final int L_BEARING = 8;
+    public static final int L_FIELDS = 9;
+
+    public static final char SATELLITE = 'S';
+    public static final int S_ELAPSED_MS = 1;
+    public static final int S_CONSTELLATION = 2;
+    public static final int S_SVID = 3;
+    public static final int S_AZIMUTH = 4;
+    public static final int S_ELEVATION = 5;
+    public static final int S_CN0 = 6;
+    public static final int S_USED = 7;
+    public static final int S_FIELDS = 8;
+
+    private SessionFormat() { }
+}
@@ -0,0 +1,111 @@
+package com.example.localizao.core;
+
+/**
+ * Prevê azimute e elevação de todos os satélites GPS com órbita conhecida, vistos de uma posição.
+ * <p>
+ * Os resultados ficam em cache por intervalo de tempo ({@code bucketMillis}, ex.: 30 s, em que um
+ * satélite anda menos de 0,3º no céu): a equação de Kepler só é resolvida de novo quando o
+ * intervalo muda, chega uma órbita nova ou o observador se desloca mais de {@link #MAX_MOVE_M}.
+ */
+public class SkyPredictor {
+    public static final long DEFAULT_BUCKET_MS = 30_000;
+    private static final double MAX_MOVE_M = 1000;
+
+    // WGS 84
+    private static final double EARTH_A = 6378137.0;
+    private static final double EARTH_E2 = 6.69437999014e-3;
+
+    private final long bucketMillis;
+
+    // Chave da cache
+    private long bucket = Long.MIN_VALUE;
+    private int orbitVersion = -1;
+    private final double[] observer = new double[3]; // ECEF
+    private boolean hasObserver = false;
+
+    // Satélites previstos acima do horizonte
+    private int count = 0;
+    private final int[] svid = new int[GpsNavigationDecoder.MAX_PRN];
+    private final float[] azimuth = new float[GpsNavigationDecoder.MAX_PRN];
+    private final float[] elevation = new float[GpsNavigationDecoder.MAX_PRN];
+    private final boolean[] fromAlmanac = new boolean[GpsNavigationDecoder.MAX_PRN];
+
+    private final double[] position = new double[3];
+    private final double[] candidate = new double[3];
+
+    public SkyPredictor(long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    public int getCount() { return count; }
+    public int getSvid(int i) { return svid[i]; }
+    public float getAzimuthDegrees(int i) { return azimuth[i]; }
+    public float getElevationDegrees(int i) { return elevation[i]; }
+    public boolean isFromAlmanac(int i) { return fromAlmanac[i]; }
+
+    /**
+     * Atualiza as previsões para o instante e a posição dados, se a cache não servir mais.
+     * Retorna true se as previsões foram recalculadas.
+     */
+    public boolean update(GpsNavigationDecoder orbits, long utcMillis,
+                          double latitudeDegrees, double longitudeDegrees, double altitudeMeters) {
+        long currentBucket = Math.floorDiv(utcMillis, bucketMillis);
+        geodeticToEcef(latitudeDegrees, longitudeDegrees, altitudeMeters, candidate);
+        boolean moved = !hasObserver || distance(candidate, observer) > MAX_MOVE_M;
+        if (currentBucket == bucket && orbits.getVersion() == orbitVersion && !moved) return false;
+
+        bucket = currentBucket;
+        orbitVersion = orbits.getVersion();
+        if (moved) {
+            System.arraycopy(candidate, 0, observer, 0, 3);
+            hasObserver = true;
+        }
+
+        // Calcula no meio do intervalo para reduzir o erro máximo dentro dele
+        double tow = GpsOrbit.timeOfWeek(bucket * bucketMillis + bucketMillis / 2);
+        double lat = Math.toRadians(latitudeDegrees), lon = Math.toRadians(longitudeDegrees);
+        double sinLat = Math.sin(lat), cosLat = Math.cos(lat);
+        double sinLon = Math.sin(lon), cosLon = Math.cos(lon);
+
+        count = 0;
+        for (int prn = 1; prn <= GpsNavigationDecoder.MAX_PRN; prn++) {
+            GpsOrbit orbit = orbits.getOrbit(prn, tow);
+            if (orbit == null || !orbit.healthy) continue;
+            orbit.position(tow, position);
+
+            // Vetor observador → satélite em coordenadas locais (Leste, Norte, Cima)
+            double dx = position[0] - observer[0];
+            double dy = position[1] - observer[1];
+            double dz = position[2] - observer[2];
+            double east = -sinLon * dx + cosLon * dy;
+            double north = -sinLat * cosLon * dx - sinLat * sinLon * dy + cosLat * dz;
+            double up = cosLat * cosLon * dx + cosLat * sinLon * dy + sinLat * dz;
+
+            double el = Math.toDegrees(Math.atan2(up, Math.hypot(east, north)));
+            if (el < 0) continue;
+            double az = Math.toDegrees(Math.atan2(east, north));
+            if (az < 0) az += 360;
+
+            svid[count] = prn;
+            azimuth[count] = (float) az;
+            elevation[count] = (float) el;
+            fromAlmanac[count] = orbit.fromAlmanac;
+            count++;
+        }
+        return true;
+    }
+
+    static void geodeticToEcef(double latitudeDegrees, double longitudeDegrees, double altitude, double[] out) {
+        double lat = Math.toRadians(latitudeDegrees), lon = Math.toRadians(longitudeDegrees);
+        double sinLat = Math.sin(lat);
+        double n = EARTH_A / Math.sqrt(1 - EARTH_E2 * sinLat * sinLat);
+        out[0] = (n + altitude) * Math.cos(lat) * Math.cos(lon);
+        out[1] = (n + altitude) * Math.cos(lat) * Math.sin(lon);
+        out[2] = (n * (1 - EARTH_E2) + altitude) * sinLat;
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double dx = a[0] - b[0], dy = a[1] - b[1], dz = a[2] - b[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
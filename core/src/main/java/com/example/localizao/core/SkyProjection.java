@@ -0,0 +1,24 @@
+package com.example.localizao.core;
+
+/**
+ * Projeção azimutal equidistante da esfera celeste: o zênite fica no centro e o horizonte no
+ * círculo de raio {@code radius}. O eixo y cresce para o Norte e o eixo x para o Leste.
+ * Compartilhada pelo {@code GNSSView} e pelo analisador de sessões.
+ */
+public final class SkyProjection {
+    private SkyProjection() { }
+
+    /** Distância ao centro para a elevação dada. */
+    public static float rho(float elevationDegrees, float radius) {
+        float dz = 90f - elevationDegrees;
+        return radius * dz / 90f;
+    }
+
+    public static float x(float azimuthDegrees, float elevationDegrees, float radius) {
+        return (float) (rho(elevationDegrees, radius) * Math.sin(Math.toRadians(azimuthDegrees)));
+    }
+
+    public static float y(float azimuthDegrees, float elevationDegrees, float radius) {
+        return (float) (rho(elevationDegrees, radius) * Math.cos(Math.toRadians(azimuthDegrees)));
+    }
+}
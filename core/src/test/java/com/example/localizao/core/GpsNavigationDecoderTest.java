@@ -0,0 +1,253 @@
+package com.example.localizao.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Decodificação LNAV (efeméride e almanaque) e propagação da órbita. Os subquadros são montados
+ * aqui a partir de elementos conhecidos, com o mesmo empacotamento de
+ * {@code GnssNavigationMessage.getData()} (palavras de 30 bits em 4 bytes, paridade nos 6 LSB).
+ */
+public class GpsNavigationDecoderTest {
+    private static final double GPS_PI = 3.1415926535898;
+    private static final double EARTH_ROTATION = 7.2921151467e-5;
+    private static final double EARTH_A = 6378137.0;
+
+    // Elementos de uma efeméride típica (PRN 1)
+    private static final double SQRT_A = 5153.65;
+    private static final double E = 0.0102;
+    private static final double I0 = 0.9686;
+    private static final double OMEGA0 = -2.5;
+    private static final double OMEGA = 0.72;
+    private static final double M0 = 1.2;
+    private static final double DELTA_N = 4.5e-9;
+    private static final double OMEGA_DOT = -8.0e-9;
+    private static final double IDOT = 2e-10;
+    private static final int TOE = 344064; // Múltiplo de 4096, para o almanaque ter a mesma época
+    private static final int IODE = 77;
+
+    @Test
+    public void decodesEphemerisFields() {
+        GpsNavigationDecoder decoder = new GpsNavigationDecoder();
+        assertFalse(decoder.onSubframe(1, subframe1()));
+        assertFalse(decoder.onSubframe(1, subframe2()));
+        assertTrue(decoder.onSubframe(1, subframe3()));
+        // O mesmo IODE não é uma órbita nova
+        assertFalse(decoder.onSubframe(1, subframe3()));
+
+        GpsOrbit o = decoder.getOrbit(1, TOE);
+        assertNotNull(o);
+        assertFalse(o.fromAlmanac);
+        assertTrue(o.healthy);
+        assertEquals(SQRT_A, o.sqrtA, 1e-5);
+        assertEquals(E, o.e, 1e-9);
+        assertEquals(I0, o.i0, 1e-8);
+        assertEquals(OMEGA0, o.omega0, 1e-8);
+        assertEquals(OMEGA, o.omega, 1e-8);
+        assertEquals(M0, o.m0, 1e-8);
+        assertEquals(DELTA_N, o.deltaN, 1e-12);
+        assertEquals(OMEGA_DOT, o.omegaDot, 1e-12);
+        assertEquals(IDOT, o.iDot, 1e-12);
+        assertEquals(TOE, o.toe, 0);
+        assertEquals(-20.5, o.crs, 1e-9);
+        assertEquals(250.0, o.crc, 1e-9);
+        assertEquals(-1e-7, o.cic, 1e-9);
+    }
+
+    @Test
+    public void ephemerisRadiusIsWithinOrbit() {
+        GpsNavigationDecoder decoder = decoderWithEphemeris();
+        double a = SQRT_A * SQRT_A;
+        double[] p = new double[3];
+        for (int dt = -7200; dt <= 7200; dt += 600) {
+            decoder.getOrbit(1, TOE + dt).position(TOE + dt, p);
+            double r = Math.sqrt(p[0] * p[0] + p[1] * p[1] + p[2] * p[2]);
+            // Entre o perigeu e o apogeu, mais a correção harmônica de raio (Crs/Crc)
+            assertTrue("r = " + r, r > a * (1 - E) - 300 && r < a * (1 + E) + 300);
+        }
+    }
+
+    @Test
+    public void almanacMatchesEphemerisAtEpoch() {
+        GpsNavigationDecoder decoder = decoderWithEphemeris();
+        assertTrue(decoder.onSubframe(9, pack(almanacWords(5), 5)));
+
+        GpsOrbit almanac = decoder.getOrbit(5, TOE);
+        assertNotNull(almanac);
+        assertTrue(almanac.fromAlmanac);
+
+        double[] eph = new double[3], alm = new double[3];
+        decoder.getOrbit(1, TOE).position(TOE, eph);
+        almanac.position(TOE, alm);
+        // Mesmos elementos, sem as correções harmônicas: diferença de poucos km
+        double dx = eph[0] - alm[0], dy = eph[1] - alm[1], dz = eph[2] - alm[2];
+        assertTrue(Math.sqrt(dx * dx + dy * dy + dz * dz) < 5000);
+    }
+
+    @Test
+    public void staleEphemerisFallsBackToAlmanac() {
+        GpsNavigationDecoder decoder = decoderWithEphemeris();
+        double stale = TOE + GpsNavigationDecoder.EPHEMERIS_VALIDITY_S + 60;
+        assertNull(decoder.getOrbit(1, stale));
+
+        assertTrue(decoder.onSubframe(1, pack(almanacWords(1), 5)));
+        GpsOrbit orbit = decoder.getOrbit(1, stale);
+        assertNotNull(orbit);
+        assertTrue(orbit.fromAlmanac);
+        assertFalse(decoder.getOrbit(1, TOE).fromAlmanac);
+    }
+
+    @Test
+    public void predictsReferenceAzimuthElevation() {
+        // Órbita circular equatorial (e = 0, i = 0, sem correções) com o satélite sobre
+        // (lat 0, lon 0) no toe: Ω0 compensa a rotação da Terra até o toe
+        int toe = 327680;
+        int iode = 12;
+        int[] sf1 = new int[10];
+        put(sf1, 8, 1, 8, iode);
+        int[] sf2 = new int[10];
+        put(sf2, 3, 1, 8, iode);
+        put32(sf2, 8, Math.round(SQRT_A / 0x1p-19));
+        put(sf2, 10, 1, 16, toe / 16);
+        int[] sf3 = new int[10];
+        double omega0 = Math.IEEEremainder(EARTH_ROTATION * toe, 2 * GPS_PI);
+        put32(sf3, 3, Math.round(omega0 / GPS_PI / 0x1p-31));
+        put(sf3, 10, 1, 8, iode);
+
+        GpsNavigationDecoder decoder = new GpsNavigationDecoder();
+        decoder.onSubframe(7, pack(sf1, 1));
+        decoder.onSubframe(7, pack(sf2, 2));
+        assertTrue(decoder.onSubframe(7, pack(sf3, 3)));
+
+        double a = decoder.getOrbit(7, toe).sqrtA;
+        a *= a;
+        double[] p = new double[3];
+        decoder.getOrbit(7, toe).position(toe, p);
+        assertEquals(a, p[0], 1);
+        assertEquals(0, p[1], 1);
+        assertEquals(0, p[2], 1);
+
+        long utc = utcForTimeOfWeek(toe);
+        SkyPredictor predictor = new SkyPredictor(1);
+
+        // Observador sob o satélite: zênite
+        assertTrue(predictor.update(decoder, utc, 0, 0, 0));
+        assertEquals(1, predictor.getCount());
+        assertEquals(7, predictor.getSvid(0));
+        assertEquals(90, predictor.getElevationDegrees(0), 0.01);
+
+        // Observador no equador a 60º L: satélite a oeste, elevação pela geometria do plano equatorial
+        assertTrue(predictor.update(decoder, utc, 0, 60, 0));
+        double sin60 = Math.sin(Math.toRadians(60)), cos60 = Math.cos(Math.toRadians(60));
+        double east = -sin60 * (a - EARTH_A * cos60) - cos60 * EARTH_A * sin60;
+        double up = cos60 * (a - EARTH_A * cos60) - sin60 * EARTH_A * sin60;
+        assertEquals(1, predictor.getCount());
+        assertEquals(270, predictor.getAzimuthDegrees(0), 0.01);
+        assertEquals(Math.toDegrees(Math.atan2(up, -east)), predictor.getElevationDegrees(0), 0.01);
+
+        // Mesmo intervalo e mesma posição: usa a cache
+        assertFalse(predictor.update(decoder, utc, 0, 60, 0));
+    }
+
+    // --- Montagem dos subquadros ---
+
+    private static GpsNavigationDecoder decoderWithEphemeris() {
+        GpsNavigationDecoder decoder = new GpsNavigationDecoder();
+        decoder.onSubframe(1, subframe1());
+        decoder.onSubframe(1, subframe2());
+        decoder.onSubframe(1, subframe3());
+        return decoder;
+    }
+
+    private static byte[] subframe1() {
+        int[] w = new int[10];
+        put(w, 3, 17, 6, 0);          // Saúde
+        put(w, 3, 23, 2, 0);          // IODC (MSB)
+        put(w, 8, 1, 8, IODE);        // IODC (LSB)
+        return pack(w, 1);
+    }
+
+    private static byte[] subframe2() {
+        int[] w = new int[10];
+        put(w, 3, 1, 8, IODE);
+        put(w, 3, 9, 16, Math.round(-20.5 / 0x1p-5));
+        put(w, 4, 1, 16, Math.round(DELTA_N / GPS_PI / 0x1p-43));
+        put32(w, 4, Math.round(M0 / GPS_PI / 0x1p-31));
+        put(w, 6, 1, 16, Math.round(1e-6 / 0x1p-29));
+        put32(w, 6, Math.round(E / 0x1p-33));
+        put(w, 8, 1, 16, Math.round(5e-6 / 0x1p-29));
+        put32(w, 8, Math.round(SQRT_A / 0x1p-19));
+        put(w, 10, 1, 16, TOE / 16);
+        // D30 da palavra 4 ligado: a palavra 5 (M0) vai invertida
+        return pack(w, 2, 4);
+    }
+
+    private static byte[] subframe3() {
+        int[] w = new int[10];
+        put(w, 3, 1, 16, Math.round(-1e-7 / 0x1p-29));
+        put32(w, 3, Math.round(OMEGA0 / GPS_PI / 0x1p-31));
+        put(w, 5, 1, 16, Math.round(1e-7 / 0x1p-29));
+        put32(w, 5, Math.round(I0 / GPS_PI / 0x1p-31));
+        put(w, 7, 1, 16, Math.round(250 / 0x1p-5));
+        put32(w, 7, Math.round(OMEGA / GPS_PI / 0x1p-31));
+        put(w, 9, 1, 24, Math.round(OMEGA_DOT / GPS_PI / 0x1p-43));
+        put(w, 10, 1, 8, IODE);
+        put(w, 10, 9, 14, Math.round(IDOT / GPS_PI / 0x1p-43));
+        return pack(w, 3);
+    }
+
+    /** Página de almanaque (subquadros 4/5) com os mesmos elementos da efeméride. */
+    private static int[] almanacWords(int prn) {
+        int[] w = new int[10];
+        put(w, 3, 1, 2, 1);
+        put(w, 3, 3, 6, prn);
+        put(w, 3, 9, 16, Math.round(E / 0x1p-21));
+        put(w, 4, 1, 8, TOE / 4096);
+        put(w, 4, 9, 16, Math.round((I0 / GPS_PI - 0.3) / 0x1p-19));
+        put(w, 5, 1, 16, Math.round(OMEGA_DOT / GPS_PI / 0x1p-38));
+        put(w, 6, 1, 24, Math.round(SQRT_A / 0x1p-11));
+        put(w, 7, 1, 24, Math.round(OMEGA0 / GPS_PI / 0x1p-23));
+        put(w, 8, 1, 24, Math.round(OMEGA / GPS_PI / 0x1p-23));
+        put(w, 9, 1, 24, Math.round(M0 / GPS_PI / 0x1p-23));
+        return w;
+    }
+
+    /** Grava {@code value} nos bits {@code first}..(first+length-1) (1-24) da palavra {@code word}. */
+    private static void put(int[] words, int word, int first, int length, long value) {
+        words[word - 1] |= (int) ((value & ((1L << length) - 1)) << (24 - first - length + 1));
+    }
+
+    /** Campo de 32 bits: 8 MSB no fim da palavra {@code word}, 24 LSB na seguinte. */
+    private static void put32(int[] words, int word, long value) {
+        put(words, word, 17, 8, value >>> 24);
+        put(words, word + 1, 1, 24, value);
+    }
+
+    private static byte[] pack(int[] words, int subframe) { return pack(words, subframe, -1); }
+
+    /** Empacota com o ID do subquadro no HOW; {@code d30Word} (1-10) sai com D30 = 1. */
+    private static byte[] pack(int[] words, int subframe, int d30Word) {
+        put(words, 2, 20, 3, subframe);
+        byte[] data = new byte[40];
+        int previous = 0;
+        for (int i = 0; i < 10; i++) {
+            int d = words[i];
+            if ((previous & 1) != 0) d ^= 0xFFFFFF;
+            int word = (d << 6) | (i + 1 == d30Word ? 1 : 0);
+            data[4 * i] = (byte) (word >>> 24);
+            data[4 * i + 1] = (byte) (word >>> 16);
+            data[4 * i + 2] = (byte) (word >>> 8);
+            data[4 * i + 3] = (byte) word;
+            previous = word;
+        }
+        return data;
+    }
+
+    /** Instante UTC (ms) cujo tempo da semana GPS é {@code tow}, na semana de referência. */
+    private static long utcForTimeOfWeek(double tow) {
+        long reference = 1760000000000L;
+        double delta = tow - GpsOrbit.timeOfWeek(reference);
+        return reference + Math.round(delta * 1000);
+    }
+}
@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "localização"
 include(":app")
+include(":core")
+include(":analyzer")
  
\ No newline at end of file